@@ -0,0 +1,82 @@
+package dsa;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// One owner thread produces work at the last end while thieves take it from the first
+// end, comparing WorkStealingDeque with a Deque guarded by synchronized. The owner keeps
+// at most BACKLOG items queued by popping its own work back. Run main to sweep 1 to 64
+// threads, or pick a split by hand with -tg 1,<thieves>.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DequeContentionBenchmark {
+    private static final int BACKLOG = 1024;
+    private static final Integer WORK = 42;
+
+    @State(Scope.Group)
+    public static class Shared {
+        final WorkStealingDeque<Integer> stealing = new WorkStealingDeque<>();
+        final Deque<Integer> locked = new Deque<>();
+    }
+
+    @Benchmark
+    @Group("workStealing")
+    @GroupThreads(1)
+    public Integer workStealingOwner(Shared shared) {
+        shared.stealing.addLast(WORK);
+        return shared.stealing.size() > BACKLOG ? shared.stealing.pollLast() : null;
+    }
+
+    @Benchmark
+    @Group("workStealing")
+    @GroupThreads(3)
+    public Integer workStealingThief(Shared shared) {
+        return shared.stealing.pollFirst();
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public Integer synchronizedOwner(Shared shared) {
+        synchronized (shared.locked) {
+            shared.locked.addLast(WORK);
+            return shared.locked.size() > BACKLOG ? shared.locked.removeLast() : null;
+        }
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public Integer synchronizedThief(Shared shared) {
+        synchronized (shared.locked) {
+            return shared.locked.isEmpty() ? null : shared.locked.removeFirst();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(DequeContentionBenchmark.class.getSimpleName())
+                    .threadGroups(1, Math.max(threads - 1, 1))
+                    .addProfiler(GCProfiler.class)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dsa;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The algorithm is quadratic, so the large sizes run as single shots; 100k points take
+// a long time, pass -p n=1000,10000 for a quick run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastCollinearPointsBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int n;
+
+    private Point[] points;
+
+    // Distinct random points on a 32768 x 32768 grid, with a tenth of them placed on
+    // a handful of lines so there are segments to report
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Set<Long> used = new HashSet<>();
+        points = new Point[n];
+        int i = 0;
+        while (i < n / 10) {
+            int line = random.nextInt(8);
+            int t = random.nextInt(32768 / 8);
+            int x = t * (line + 1) % 32768;
+            int y = (t * 7 + line * 1000) % 32768;
+            if (used.add((long) x << 32 | y)) points[i++] = new Point(x, y);
+        }
+        while (i < n) {
+            int x = random.nextInt(32768);
+            int y = random.nextInt(32768);
+            if (used.add((long) x << 32 | y)) points[i++] = new Point(x, y);
+        }
+    }
+
+    @Benchmark
+    public int segments() {
+        return new FastCollinearPoints(points).numberOfSegments();
+    }
+}
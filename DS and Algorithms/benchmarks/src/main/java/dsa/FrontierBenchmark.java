@@ -0,0 +1,61 @@
+package dsa;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A* with the bucket queue against the binary heap on the same scrambled boards. The
+// nodes counter reports boards expanded per second; the bucket queue also expands fewer
+// of them, since it breaks ties towards the goal.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FrontierBenchmark {
+    @Param({"3", "4"})
+    private int n;
+
+    @Param({"40", "60"})
+    private int walk;
+
+    @Param({"A_STAR", "A_STAR_HEAP"})
+    private Solver.Search search;
+
+    private Board initial;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        initial = SolverBenchmark.scramble(n, walk, 42);
+    }
+
+    @Benchmark
+    public int solve(Counters counters) {
+        Solver solver = new Solver(initial, Heuristic.MANHATTAN, search);
+        counters.nodes += solver.expanded();
+        return solver.moves();
+    }
+}
@@ -0,0 +1,81 @@
+package dsa;
+
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.RectHV;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KdTreeBenchmark {
+    private static final int QUERIES = 1024;  // Power of two, cycled through with a mask
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private Point2D[] points;
+    private Point2D[] queries;
+    private RectHV[] rects;
+    private KdTree tree;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        points = new Point2D[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = new Point2D(random.nextDouble(), random.nextDouble());
+        }
+        tree = new KdTree();
+        for (Point2D p : points) {
+            tree.insert(p);
+        }
+
+        // Query rectangles hold about 100 points each whatever the tree size
+        double side = Math.sqrt(100.0 / size);
+        queries = new Point2D[QUERIES];
+        rects = new RectHV[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new Point2D(random.nextDouble(), random.nextDouble());
+            double x = random.nextDouble() * (1 - side);
+            double y = random.nextDouble() * (1 - side);
+            rects[i] = new RectHV(x, y, x + side, y + side);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int insert() {
+        KdTree fresh = new KdTree();
+        for (Point2D p : points) {
+            fresh.insert(p);
+        }
+        return fresh.size();
+    }
+
+    @Benchmark
+    public Point2D nearest() {
+        return tree.nearest(queries[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public Iterable<Point2D> range() {
+        return tree.range(rects[next++ & (QUERIES - 1)]);
+    }
+}
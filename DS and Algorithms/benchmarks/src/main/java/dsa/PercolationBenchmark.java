@@ -0,0 +1,87 @@
+package dsa;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One operation is a full trial: open sites in a fixed random order until the grid percolates
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercolationBenchmark {
+    @Param({"100", "500", "2000"})
+    private int n;
+
+    @Param({"square4"})
+    private String lattice;
+
+    private Lattice grid;
+    private int[] sites;
+    private int percolatesAt;  // Position in sites whose opening makes the grid percolate
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = Lattice.forName(lattice, n);
+        sites = new int[grid.sites()];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = sites.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = sites[i];
+            sites[i] = sites[j];
+            sites[j] = swap;
+        }
+        percolatesAt = new Percolation(grid).openAll(sites);
+    }
+
+    @Benchmark
+    public int openRowColUntilPercolates() {
+        Percolation percolation = new Percolation(grid);
+        for (int i = 0; !percolation.percolates(); i++) {
+            int site = sites[i];
+            percolation.open(site / n + 1, site % n + 1);
+        }
+        return percolation.numberOfOpenSites();
+    }
+
+    @Benchmark
+    public int openIndexUntilPercolates() {
+        Percolation percolation = new Percolation(grid);
+        for (int i = 0; !percolation.percolates(); i++) {
+            percolation.open(sites[i]);
+        }
+        return percolation.numberOfOpenSites();
+    }
+
+    // Opens the same prefix of sites as the two loops above, in one batch call, so all
+    // three measure the same work
+    @Benchmark
+    public int openAll() {
+        return new Percolation(grid).openAll(sites, 0, percolatesAt + 1);
+    }
+
+    // The same batch on the pre-lattice, square-only implementation; openAll on square4
+    // should match it
+    @Benchmark
+    public int openAllSquareReference() {
+        SquarePercolation percolation = new SquarePercolation(n);
+        percolation.openAll(sites, 0, percolatesAt + 1);
+        return percolation.numberOfOpenSites();
+    }
+}
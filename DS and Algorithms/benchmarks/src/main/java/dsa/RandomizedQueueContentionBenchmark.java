@@ -0,0 +1,67 @@
+package dsa;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+// Every thread enqueues one item and dequeues one, against ConcurrentRandomizedQueue
+// and against a RandomizedQueue behind one lock. Scale the thread count with -t. Each
+// benchmark thread prefills its share of the items itself, so the striped queue starts
+// with them on the stripes those threads enqueue to, not all on the setup thread's.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomizedQueueContentionBenchmark {
+    private static final int PREFILL = 1 << 16;
+    private static final Integer WORK = 42;
+
+    private ConcurrentRandomizedQueue<Integer> striped;
+    private RandomizedQueue<Integer> locked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        striped = new ConcurrentRandomizedQueue<>();
+        locked = new RandomizedQueue<>(ThreadLocalRandom.current());
+    }
+
+    @State(Scope.Thread)
+    public static class Prefill {
+        @Setup(Level.Trial)
+        public void prefill(RandomizedQueueContentionBenchmark queues, BenchmarkParams params) {
+            for (int i = 0; i < PREFILL / params.getThreads(); i++) {
+                queues.striped.enqueue(WORK);
+                synchronized (queues.locked) {
+                    queues.locked.enqueue(WORK);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer striped(Prefill prefill) {
+        striped.enqueue(WORK);
+        return striped.dequeue();
+    }
+
+    @Benchmark
+    public Integer synchronizedQueue(Prefill prefill) {
+        synchronized (locked) {
+            locked.enqueue(WORK);
+            return locked.dequeue();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dsa;
+
+import edu.princeton.cs.algs4.In;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Solves either a puzzle file in the course format (-p file=puzzle36.txt) or, by
+// default, a board scrambled from the goal by a seeded random walk
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({""})
+    private String file;
+
+    @Param({"3"})
+    private int n;
+
+    @Param({"20", "40", "80"})
+    private int walk;
+
+    @Param({"A_STAR", "IDA_STAR", "BIDIRECTIONAL", "HDA_STAR"})
+    private Solver.Search search;
+
+    private Board initial;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        initial = file.isEmpty() ? scramble(n, walk, 42) : read(file);
+    }
+
+    static Board read(String file) {
+        In in = new In(file);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                tiles[i][j] = in.readInt();
+            }
+        }
+        return new Board(tiles);
+    }
+
+    // Random walk of the blank from the goal, never undoing the previous move
+    static Board scramble(int n, int moves, long seed) {
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n * n - 1; i++) {
+            tiles[i / n][i % n] = i + 1;
+        }
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        SplittableRandom random = new SplittableRandom(seed);
+        int row = n - 1, col = n - 1, last = -1;
+        for (int m = 0; m < moves; m++) {
+            int d = random.nextInt(4);
+            int newRow = row + directions[d][0], newCol = col + directions[d][1];
+            if ((d ^ 1) == last || newRow < 0 || newRow >= n || newCol < 0 || newCol >= n) {
+                m--;
+                continue;
+            }
+            tiles[row][col] = tiles[newRow][newCol];
+            tiles[newRow][newCol] = 0;
+            row = newRow;
+            col = newCol;
+            last = d;
+        }
+        return new Board(tiles);
+    }
+
+    @Benchmark
+    public int solve() {
+        return new Solver(initial, Heuristic.MANHATTAN, search).moves();
+    }
+}
@@ -0,0 +1,97 @@
+package dsa;
+
+// Percolation as it was before lattices, hard-wired to the square grid with its four
+// bounds checks inline. Kept only as the reference PercolationBenchmark holds the
+// square4 lattice to; the API is cut down to openAll.
+final class SquarePercolation {
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+    private static final int RANK_SHIFT = 3;
+
+    private final int n;
+    private final int[] parent;
+    private final byte[] status;
+    private int openSiteCount;
+    private boolean percolates;
+
+    SquarePercolation(int n) {
+        this.n = n;
+        this.parent = new int[n * n];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        this.status = new byte[n * n];
+    }
+
+    int openAll(int[] sites, int from, int to) {
+        int limit = n * n;
+        int i = from;
+        int percolatedAt = -1;
+        if (!percolates) {
+            for (; i < to; i++) {
+                int index = sites[i];
+                if (index < 0 || index >= limit) throw new IllegalArgumentException("Invalid index");
+                openSite(index);
+                if (percolates) {
+                    percolatedAt = i++;
+                    break;
+                }
+            }
+        }
+        for (; i < to; i++) {
+            int index = sites[i];
+            if (index < 0 || index >= limit) throw new IllegalArgumentException("Invalid index");
+            openSite(index);
+        }
+        return percolatedAt;
+    }
+
+    int numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    private void openSite(int index) {
+        if ((status[index] & OPEN) != 0) return;
+        openSiteCount++;
+
+        int row = index / n;
+        int col = index - row * n;
+
+        byte bits = OPEN;
+        if (row == 0) bits |= TOP;
+        if (row == n - 1) bits |= BOTTOM;
+        status[index] = bits;
+
+        if (row > 0 && (status[index - n] & OPEN) != 0) union(index, index - n);
+        if (row < n - 1 && (status[index + n] & OPEN) != 0) union(index, index + n);
+        if (col > 0 && (status[index - 1] & OPEN) != 0) union(index, index - 1);
+        if (col < n - 1 && (status[index + 1] & OPEN) != 0) union(index, index + 1);
+
+        if ((status[find(index)] & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+    }
+
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return;
+        int rankP = (status[rootP] & 0xFF) >>> RANK_SHIFT;
+        int rankQ = (status[rootQ] & 0xFF) >>> RANK_SHIFT;
+        if (rankP < rankQ) {
+            int swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+        }
+        parent[rootQ] = rootP;
+        status[rootP] |= status[rootQ] & (TOP | BOTTOM);
+        if (rankP == rankQ) status[rootP] += 1 << RANK_SHIFT;
+    }
+}
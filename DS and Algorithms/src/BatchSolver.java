@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Solves many puzzles on a fixed pool of worker threads. Each worker keeps one
+// Solver.Workspace for every board it solves, and prints each result as soon as it has
+// it, so the output is in completion order, not input order.
+//
+// The input is a puzzle file, a directory of them, or - for standard input; a file or the
+// stream may hold any number of puzzles back to back, each in the course format (n
+// followed by n * n tiles). The reader blocks once every worker is busy with two more
+// puzzles queued for each, so a long stream is never read into memory ahead of them, and
+// latencies are folded into running aggregates rather than kept per puzzle. A puzzle that
+// cannot be read or solved is reported in the output and counted as a failure; the rest
+// of the batch carries on.
+public class BatchSolver {
+    private final ThreadPoolExecutor pool;
+    private final Semaphore slots;  // One per running or queued puzzle, 2 queued per worker
+    private final ThreadLocal<Solver.Workspace> workspaces = ThreadLocal.withInitial(Solver.Workspace::new);
+    private final Heuristic heuristic;
+    private final Solver.Search search;
+    private final boolean printSolutions;
+    private final PrintStream out;
+    private final Latencies latencies = new Latencies();
+    private final LongAdder failures = new LongAdder();
+
+    public BatchSolver(int threads, Heuristic heuristic, Solver.Search search, boolean printSolutions, PrintStream out) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        if (heuristic == null || search == null || out == null) throw new IllegalArgumentException();
+        // HDA* starts its own threads for every puzzle, which would multiply with the pool's
+        if (search == Solver.Search.HDA_STAR) throw new IllegalArgumentException("HDA_STAR cannot run inside a batch");
+        // The semaphore, not the queue, bounds the backlog: a finished task frees its slot
+        // a moment before its worker takes the next one, when a full bounded queue would
+        // still reject a new puzzle
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.slots = new Semaphore(3 * threads);
+        this.heuristic = heuristic;
+        this.search = search;
+        this.printSolutions = printSolutions;
+        this.out = out;
+    }
+
+    // Queues every puzzle in in; name and a running number label the results. A puzzle
+    // that does not parse is reported and skipped, and reading goes on from the next token
+    public void submitAll(Tokenizer in, String name) throws InterruptedException {
+        for (int i = 1; in.hasNext(); i++) {
+            String label = name + "#" + i;
+            Board board;
+            try {
+                board = read(in);
+            } catch (IllegalArgumentException e) {
+                fail(label, e);
+                continue;
+            }
+            submit(board, label);
+        }
+    }
+
+    private static Board read(Tokenizer in) {
+        int n = Integer.parseInt(in.next());
+        if (n < 2 || n > 255) throw new IllegalArgumentException("Bad puzzle size " + n);
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (!in.hasNext()) throw new IllegalArgumentException("Truncated puzzle");
+                tiles[i][j] = Integer.parseInt(in.next());
+            }
+        }
+        return new Board(tiles);
+    }
+
+    // Blocks while the workers and the queue are all taken
+    public void submit(Board board, String label) throws InterruptedException {
+        slots.acquire();
+        pool.execute(() -> {
+            try {
+                latencies.record(solve(board, label));
+            } catch (Throwable t) {
+                fail(label, t);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    // Returns the latency in nanoseconds
+    private long solve(Board board, String label) {
+        long start = System.nanoTime();
+        Solver solver = new Solver(board, heuristic, search, workspaces.get());
+        long latency = System.nanoTime() - start;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(label).append(": ");
+        if (solver.isSolvable()) sb.append(solver.moves()).append(" moves");
+        else sb.append("unsolvable");
+        sb.append(String.format(" (%.3f ms)%n", latency / 1e6));
+        if (printSolutions && solver.isSolvable()) {
+            for (Board step : solver.solution()) sb.append(step);
+        }
+        synchronized (out) {
+            out.print(sb);
+        }
+        return latency;
+    }
+
+    private void fail(String label, Throwable t) {
+        failures.increment();
+        synchronized (out) {
+            out.println(label + ": error: " + t);
+        }
+    }
+
+    // Waits for every queued puzzle and returns the latencies of those that were solved
+    public Latencies finish() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return latencies;
+    }
+
+    // Puzzles that could not be read or solved so far
+    public long failures() {
+        return failures.sum();
+    }
+
+    // Latency aggregates updated as puzzles finish: count, mean and maximum exactly, and
+    // percentiles from a histogram with four buckets per power of two nanoseconds, so a
+    // percentile overstates the true value by at most a quarter
+    public static final class Latencies {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(256);
+
+        void record(long nanos) {
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+            buckets.incrementAndGet(bucket(nanos));
+        }
+
+        // Values below 4 get a bucket each; above, the top three bits pick one
+        private static int bucket(long nanos) {
+            if (nanos < 4) return (int) Math.max(nanos, 0);
+            int log = 63 - Long.numberOfLeadingZeros(nanos);
+            return 4 * (log - 1) + (int) ((nanos >>> (log - 2)) & 3);
+        }
+
+        // The largest value in bucket b
+        private static long upperBound(int b) {
+            if (b < 4) return b;
+            int log = b / 4 + 1;
+            return ((5L + b % 4) << (log - 2)) - 1;
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double mean() {
+            long n = count();
+            return n == 0 ? 0 : (double) total.sum() / n;
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        // An upper bound on the q quantile, for q in [0, 1]
+        public long percentile(double q) {
+            if (q < 0 || q > 1) throw new IllegalArgumentException("q must be in [0, 1]");
+            long rank = Math.max(1, (long) Math.ceil(q * count()));
+            long seen = 0;
+            for (int b = 0; b < buckets.length(); b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return Math.min(upperBound(b), max());
+            }
+            return max();
+        }
+    }
+
+    private static String usage() {
+        String searches = Arrays.stream(Solver.Search.values())
+                .filter(search -> search != Solver.Search.HDA_STAR)
+                .map(Enum::name).collect(Collectors.joining("|"));
+        return "Usage: BatchSolver (file|directory|-) [threads [" + searches + " [moves|solutions]]]";
+    }
+
+    // Usage: see usage(); the search defaults to A_STAR, always with LINEAR_CONFLICT
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println(usage());
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Solver.Search search = args.length > 2 ? Solver.Search.valueOf(args[2]) : Solver.Search.A_STAR;
+        boolean printSolutions = args.length > 3 && args[3].equals("solutions");
+        BatchSolver batch = new BatchSolver(threads, Heuristic.LINEAR_CONFLICT, search, printSolutions, System.out);
+
+        long start = System.nanoTime();
+        Latencies latencies;
+        // The workers are not daemons: the pool has to be shut down even when reading fails
+        try {
+            submitAll(batch, args[0]);
+        } finally {
+            latencies = batch.finish();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (batch.failures() > 0) System.out.printf("%d puzzles failed%n", batch.failures());
+        if (latencies.count() == 0) return;
+        System.out.printf("%d puzzles in %.3f s on %d threads: %.1f puzzles/s%n",
+                latencies.count(), seconds, threads, latencies.count() / seconds);
+        System.out.printf("latency ms: mean %.3f, p50 <= %.3f, p99 <= %.3f, max %.3f%n",
+                latencies.mean() / 1e6, latencies.percentile(0.5) / 1e6,
+                latencies.percentile(0.99) / 1e6, latencies.max() / 1e6);
+    }
+
+    // Reads a puzzle file, every file in a directory, or standard input for -
+    private static void submitAll(BatchSolver batch, String source) throws IOException, InterruptedException {
+        if (source.equals("-")) {
+            try (Tokenizer in = new Tokenizer(Channels.newChannel(System.in))) {
+                batch.submitAll(in, "stdin");
+            }
+            return;
+        }
+        Path path = Path.of(source);
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> entries = Files.list(path)) {
+                files = entries.filter(Files::isRegularFile).sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
+        for (Path file : files) {
+            try (Tokenizer in = Tokenizer.map(file)) {
+                batch.submitAll(in, file.getFileName().toString());
+            }
+        }
+    }
+}
@@ -2,38 +2,97 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 public class Board {
-    private final int[][] tiles;
+    // Tiles in row-major order in one flat array; char is the narrowest unsigned type
+    // that holds every tile of a board up to 255 x 255
+    private final char[] tiles;
     private final int n;
-    private final int blankRow, blankCol;
+    private final int blank;  // Index of the blank square
     private final int hamming;
     private final int manhattan;
+    private final long key;   // See key()
 
     public Board(int[][] tiles) {
         if (tiles == null) throw new IllegalArgumentException("Tiles array cannot be null");
         this.n = tiles.length;
-        this.tiles = new int[n][n];
+        if (n < 2 || n > 255) throw new IllegalArgumentException("Board must be 2 x 2 to 255 x 255");
+        this.tiles = new char[n * n];
+        boolean[] seen = new boolean[n * n];
         int hammingCount = 0, manhattanDist = 0;
-        int blankR = -1, blankC = -1;
+        int blankIndex = -1;
 
         for (int i = 0; i < n; i++) {
+            if (tiles[i] == null || tiles[i].length != n) throw new IllegalArgumentException("Tiles array must be n x n");
             for (int j = 0; j < n; j++) {
-                this.tiles[i][j] = tiles[i][j];
-                if (tiles[i][j] == 0) {
-                    blankR = i;
-                    blankC = j;
-                } else if (tiles[i][j] != (i * n + j + 1)) {
+                int tile = tiles[i][j];
+                if (tile < 0 || tile >= n * n) throw new IllegalArgumentException("Tile out of range: " + tile);
+                if (seen[tile]) throw new IllegalArgumentException("Duplicate tile: " + tile);
+                seen[tile] = true;
+                this.tiles[i * n + j] = (char) tile;
+                if (tile == 0) {
+                    blankIndex = i * n + j;
+                } else if (tile != (i * n + j + 1)) {
                     hammingCount++;
-                    int goalRow = (tiles[i][j] - 1) / n;
-                    int goalCol = (tiles[i][j] - 1) % n;
-                    manhattanDist += Math.abs(goalRow - i) + Math.abs(goalCol - j);
+                    manhattanDist += distance(tile, i * n + j);
                 }
             }
         }
 
-        this.blankRow = blankR;
-        this.blankCol = blankC;
+        this.blank = blankIndex;
         this.hamming = hammingCount;
         this.manhattan = manhattanDist;
+        long k = 0;
+        for (int i = 0; i < n * n; i++) {
+            k ^= keyOf(this.tiles[i], i);
+        }
+        this.key = k;
+    }
+
+    // Used by neighbors(), which knows the heuristics of the new board already
+    private Board(char[] tiles, int n, int blank, int hamming, int manhattan, long key) {
+        this.tiles = tiles;
+        this.n = n;
+        this.blank = blank;
+        this.hamming = hamming;
+        this.manhattan = manhattan;
+        this.key = key;
+    }
+
+    // Manhattan distance from index to the goal square of tile
+    private int distance(int tile, int index) {
+        int goal = tile - 1;
+        return Math.abs(goal / n - index / n) + Math.abs(goal % n - index % n);
+    }
+
+    // Contribution of tile on square index to the key: up to 4 x 4 the tile's four bits
+    // at the square's place, so the key is the whole board packed into a long; beyond
+    // that a pseudo-random Zobrist value. The blank contributes nothing either way,
+    // since its square follows from the others.
+    private long keyOf(int tile, int index) {
+        if (tile == 0) return 0;
+        if (hasExactKey()) return (long) tile << (4 * index);
+        long z = ((long) tile << 32 | index) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // 64-bit board hash, kept up to date by XOR as tiles slide. Equal boards have equal
+    // keys; when hasExactKey() holds, different boards also have different keys.
+    long key() {
+        return key;
+    }
+
+    boolean hasExactKey() {
+        return n <= 4;
+    }
+
+    // The tiles in row-major order, shared with this board; callers must not modify it
+    char[] tiles() {
+        return tiles;
+    }
+
+    int blank() {
+        return blank;
     }
 
     public int dimension() {
@@ -56,26 +115,61 @@ public class Board {
         if (this == y) return true;
         if (y == null || getClass() != y.getClass()) return false;
         Board other = (Board) y;
-        return n == other.n && Arrays.deepEquals(tiles, other.tiles);
+        return n == other.n && key == other.key && Arrays.equals(tiles, other.tiles);
     }
 
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    // Each neighbour moves one tile into the blank, so its hamming, manhattan and key
+    // values follow from that tile alone instead of a rescan of the board
     public Iterable<Board> neighbors() {
-        ArrayList<Board> neighbors = new ArrayList<>();
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-        for (int[] d : directions) {
-            int newRow = blankRow + d[0], newCol = blankCol + d[1];
-            if (newRow >= 0 && newRow < n && newCol >= 0 && newCol < n) {
-                int[][] newTiles = copy(tiles);
-                newTiles[blankRow][blankCol] = newTiles[newRow][newCol];
-                newTiles[newRow][newCol] = 0;
-                neighbors.add(new Board(newTiles));
+        ArrayList<Board> neighbors = new ArrayList<>(4);
+        int row = blank / n, col = blank % n;
+        if (row > 0) neighbors.add(slide(blank - n));
+        if (row < n - 1) neighbors.add(slide(blank + n));
+        if (col > 0) neighbors.add(slide(blank - 1));
+        if (col < n - 1) neighbors.add(slide(blank + 1));
+        return neighbors;
+    }
+
+    // The board after the tile at index, which must be next to the blank, slides into it
+    Board slide(int index) {
+        int tile = tiles[index];
+        char[] newTiles = tiles.clone();
+        newTiles[blank] = (char) tile;
+        newTiles[index] = 0;
+        int newHamming = hamming - (tile != index + 1 ? 1 : 0) + (tile != blank + 1 ? 1 : 0);
+        int newManhattan = manhattan - distance(tile, index) + distance(tile, blank);
+        long newKey = key ^ keyOf(tile, index) ^ keyOf(tile, blank);
+        return new Board(newTiles, n, index, newHamming, newManhattan, newKey);
+    }
+
+    // A move swaps the blank with a tile, which flips both the parity of the permutation
+    // (counting the blank as tile n * n) and the parity of the blank's Manhattan distance
+    // from its goal square. Both are even at the goal, so exactly the boards where they
+    // agree are solvable. Cycle counting makes this O(n^2).
+    boolean isSolvable() {
+        int cells = n * n;
+        boolean[] seen = new boolean[cells];
+        int cycles = 0;
+        for (int i = 0; i < cells; i++) {
+            if (seen[i]) continue;
+            cycles++;
+            for (int j = i; !seen[j]; j = tiles[j] == 0 ? cells - 1 : tiles[j] - 1) {
+                seen[j] = true;
             }
         }
-        return neighbors;
+        int blankDistance = (n - 1 - blank / n) + (n - 1 - blank % n);
+        return ((cells - cycles) & 1) == (blankDistance & 1);
     }
 
     public Board twin() {
-        int[][] twinTiles = copy(tiles);
+        int[][] twinTiles = new int[n][n];
+        for (int i = 0; i < n * n; i++) {
+            twinTiles[i / n][i % n] = tiles[i];
+        }
         outer:
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n - 1; j++) {
@@ -93,20 +187,12 @@ public class Board {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(n).append("\n");
-        for (int[] row : tiles) {
-            for (int tile : row) {
-                sb.append(String.format("%2d ", tile));
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                sb.append(String.format("%2d ", (int) tiles[i * n + j]));
             }
             sb.append("\n");
         }
         return sb.toString();
     }
-
-    private int[][] copy(int[][] original) {
-        int[][] copy = new int[original.length][original[0].length];
-        for (int i = 0; i < original.length; i++) {
-            System.arraycopy(original[i], 0, copy[i], 0, original[i].length);
-        }
-        return copy;
-    }
 }
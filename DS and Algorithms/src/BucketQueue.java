@@ -0,0 +1,115 @@
+import java.util.NoSuchElementException;
+
+// Priority queue for small non-negative integer priorities, such as the f = g + h of a
+// puzzle search. Items sit in a stack per (f, h) pair; delMin takes the lowest f, then
+// the lowest h (the node nearest the goal), and among equals the newest. Both operations
+// are O(1) apart from skipping empty buckets, and no item is ever compared.
+public class BucketQueue<Item> {
+    private Stack[][] buckets = new Stack[16][];  // buckets[f][h], created on first use
+    private int[] counts = new int[16];            // Items per f
+    private int size;
+    private int minF;  // No item has a smaller f
+
+    private static final class Stack {
+        private Object[] items = new Object[4];
+        private int size;
+
+        void push(Object item) {
+            if (size == items.length) {
+                Object[] temp = new Object[2 * size];
+                System.arraycopy(items, 0, temp, 0, size);
+                items = temp;
+            }
+            items[size++] = item;
+        }
+
+        Object pop() {
+            Object item = items[--size];
+            items[size] = null; // Avoid loitering
+            return item;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(Item item, int f, int h) {
+        if (item == null) throw new IllegalArgumentException();
+        if (f < 0 || h < 0 || h > f) throw new IllegalArgumentException("Need 0 <= h <= f");
+        if (f >= buckets.length) grow(f);
+        Stack[] row = buckets[f];
+        if (row == null || h >= row.length) row = buckets[f] = growRow(row, h);
+        if (row[h] == null) row[h] = new Stack();
+        row[h].push(item);
+        counts[f]++;
+        size++;
+        if (f < minF) minF = f;
+    }
+
+    private void grow(int f) {
+        int capacity = Math.max(2 * buckets.length, f + 1);
+        Stack[][] temp = new Stack[capacity][];
+        System.arraycopy(buckets, 0, temp, 0, buckets.length);
+        int[] tempCounts = new int[capacity];
+        System.arraycopy(counts, 0, tempCounts, 0, counts.length);
+        buckets = temp;
+        counts = tempCounts;
+    }
+
+    private static Stack[] growRow(Stack[] row, int h) {
+        int length = row == null ? 0 : row.length;
+        Stack[] temp = new Stack[Math.max(2 * length, h + 1)];
+        if (row != null) System.arraycopy(row, 0, temp, 0, length);
+        return temp;
+    }
+
+    // Empties the queue but keeps its buckets for reuse
+    public void clear() {
+        for (int f = minF; f < buckets.length && size > 0; f++) {
+            if (counts[f] == 0) continue;
+            for (Stack stack : buckets[f]) {
+                if (stack == null) continue;
+                size -= stack.size;
+                while (stack.size > 0) stack.pop();
+            }
+            counts[f] = 0;
+        }
+        minF = 0;
+    }
+
+    // The smallest f in the queue
+    public int minPriority() {
+        if (isEmpty()) throw new NoSuchElementException();
+        while (counts[minF] == 0) minF++;
+        return minF;
+    }
+
+    public Item delMin() {
+        if (isEmpty()) throw new NoSuchElementException();
+        while (counts[minF] == 0) minF++;
+        Stack[] row = buckets[minF];
+        int h = 0;
+        while (row[h] == null || row[h].size == 0) h++;
+        counts[minF]--;
+        size--;
+        return (Item) row[h].pop();
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        BucketQueue<String> pq = new BucketQueue<>();
+        pq.insert("f3 h1 first", 3, 1);
+        pq.insert("f2 h2", 2, 2);
+        pq.insert("f3 h1 second", 3, 1);
+        pq.insert("f40 h0", 40, 0);
+        pq.insert("f3 h3", 3, 3);
+        pq.insert("f2 h0", 2, 0);
+        while (!pq.isEmpty()) System.out.println(pq.delMin());
+        // f2 h0, f2 h2, f3 h1 second, f3 h1 first, f3 h3, f40 h0
+    }
+}
@@ -0,0 +1,283 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread-safe randomized queue. Items live in independently locked stripes: an enqueue
+// appends to the stripe of the calling thread, and a dequeue picks a stripe and a slot
+// index below a shared power-of-two bound on the stripe sizes, retrying when the slot is
+// past the end of that stripe. Every item is then equally likely, without summing the
+// stripe sizes on each call. Removal is uniform whenever the sizes it read were current,
+// and approximately uniform under contention. Threads on different stripes never share
+// a lock or, thanks to padding, a cache line.
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+    private static final int MIN_BOUND = 8;
+    private static final int MAX_MISSES = 4;  // Draws before pick falls back to a scan
+
+    private final Stripe[] stripes;
+    private final int mask;
+    // A power of two at least the size of every stripe. Raised by enqueues, tightened
+    // by dequeues that keep missing; written rarely, so reading it is cheap.
+    private final AtomicInteger bound = new AtomicInteger(MIN_BOUND);
+
+    // The JVM lays out superclass fields first, so this hierarchy puts 64 bytes of padding
+    // between the header (lock word) and the fields of a stripe, and after them, keeping
+    // neighbouring stripes off each other's cache lines like @Contended would
+    private static class PadBefore {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class StripeFields extends PadBefore {
+        Object[] items = new Object[8];
+        volatile int size;  // Written under the stripe lock, read without it
+    }
+
+    private static final class Stripe extends StripeFields {
+        long p10, p11, p12, p13, p14, p15, p16, p17;
+
+        // Returns the new size
+        int add(Object item) {
+            if (size == items.length) resize(2 * items.length);
+            items[size] = item;
+            size = size + 1;
+            return size;
+        }
+
+        Object removeAt(int index) {
+            Object item = items[index];
+            int last = size - 1;
+            items[index] = items[last];
+            items[last] = null; // Avoid loitering
+            size = last;
+            if (items.length > 8 && last == items.length / 4) resize(items.length / 2);
+            return item;
+        }
+
+        private void resize(int capacity) {
+            Object[] temp = new Object[capacity];
+            System.arraycopy(items, 0, temp, 0, size);
+            items = temp;
+        }
+    }
+
+    public ConcurrentRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // The stripe count is rounded up to a power of two
+    public ConcurrentRandomizedQueue(int stripes) {
+        if (stripes <= 0) throw new IllegalArgumentException("stripes must be > 0");
+        int count = ceilingPowerOfTwo(stripes);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+    }
+
+    // A snapshot; concurrent calls may change it before it returns
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void enqueue(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        Stripe stripe = stripes[stripeOf(Thread.currentThread())];
+        int size;
+        synchronized (stripe) {
+            size = stripe.add(item);
+        }
+        if (size > bound.get()) bound.accumulateAndGet(ceilingPowerOfTwo(size), Math::max);
+    }
+
+    private int stripeOf(Thread thread) {
+        long id = thread.getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public Item dequeue() {
+        Item item = poll();
+        if (item == null) throw new NoSuchElementException();
+        return item;
+    }
+
+    // Removes a random item, or returns null if every stripe is empty
+    public Item poll() {
+        return pick(true);
+    }
+
+    // Returns a random item without removing it
+    public Item sample() {
+        Item item = pick(false);
+        if (item == null) throw new NoSuchElementException();
+        return item;
+    }
+
+    // Draws (stripe, slot) uniformly from stripes x [0, bound) until the slot holds an
+    // item, which makes every item equally likely. When the items crowd into a few
+    // stripes, as with a single producer, most draws miss, so after MAX_MISSES of them
+    // the choice falls back to a scan of the stripe sizes.
+    private Item pick(boolean remove) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int misses = 0; misses < MAX_MISSES; misses++) {
+            Stripe stripe = stripes[random.nextInt() & mask];
+            int slot = random.nextInt(bound.get());
+            if (slot < stripe.size) {
+                synchronized (stripe) {
+                    if (slot < stripe.size) {
+                        return (Item) (remove ? stripe.removeAt(slot) : stripe.items[slot]);
+                    }
+                }
+            }
+        }
+        return pickByScan(remove, random);
+    }
+
+    // Sums the stripe sizes, draws an index below the total and walks the stripes to it,
+    // O(stripes) per call however the items are spread. Retries if the sizes change
+    // under it. Also tightens the bound, which removals never lower, and notices an
+    // empty queue.
+    private Item pickByScan(boolean remove, ThreadLocalRandom random) {
+        while (true) {
+            int total = 0, max = 0;
+            for (Stripe stripe : stripes) {
+                int size = stripe.size;
+                total += size;
+                max = Math.max(max, size);
+            }
+            if (total == 0) return null;
+            int b = bound.get();
+            int tight = Math.max(MIN_BOUND, ceilingPowerOfTwo(max));
+            if (tight < b) bound.compareAndSet(b, tight);  // Fails if an enqueue raised it
+
+            int index = random.nextInt(total);
+            for (Stripe stripe : stripes) {
+                int size = stripe.size;
+                if (index >= size) {
+                    index -= size;
+                    continue;
+                }
+                synchronized (stripe) {
+                    if (index < stripe.size) {
+                        return (Item) (remove ? stripe.removeAt(index) : stripe.items[index]);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    // Iterates over a snapshot in random order. The stripes are copied one at a time
+    // under their own locks, so the snapshot is not atomic across stripes; later changes
+    // to the queue are not seen. Each next() does one Fisher-Yates step.
+    public Iterator<Item> iterator() {
+        Object[] snapshot = new Object[Math.max(size(), 8)];
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int size = stripe.size;
+                if (count + size > snapshot.length) {
+                    Object[] temp = new Object[Math.max(2 * snapshot.length, count + size)];
+                    System.arraycopy(snapshot, 0, temp, 0, count);
+                    snapshot = temp;
+                }
+                System.arraycopy(stripe.items, 0, snapshot, count, size);
+                count += size;
+            }
+        }
+        Object[] items = snapshot;
+        int length = count;
+        return new Iterator<>() {
+            private int current = 0;
+
+            public boolean hasNext() {
+                return current < length;
+            }
+
+            public Item next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int j = current + ThreadLocalRandom.current().nextInt(length - current);
+                Object item = items[j];
+                items[j] = items[current];
+                items[current++] = null;
+                return (Item) item;
+            }
+        };
+    }
+
+    // Unit testing: four producer threads enqueue 40%, 30%, 20% and 10% of the items,
+    // so the stripes are very uneven, then four consumer threads dequeue a tenth of them
+    // at once. If removal is uniform, the dequeued items should come from each producer
+    // in the same proportions (chi-square, 3 df).
+    public static void main(String[] args) throws InterruptedException {
+        int items = 10_000;
+        int rounds = 50;
+        int consumers = 4;
+        double[] shares = {0.4, 0.3, 0.2, 0.1};
+        long[][] observed = new long[consumers][shares.length];
+        for (int round = 0; round < rounds; round++) {
+            ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>(16);
+            Thread[] producers = new Thread[shares.length];
+            for (int p = 0; p < shares.length; p++) {
+                int producer = p;
+                int count = (int) (items * shares[p]);
+                producers[p] = new Thread(() -> {
+                    for (int i = 0; i < count; i++) queue.enqueue(producer);
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers) producer.join();
+            Thread[] threads = new Thread[consumers];
+            for (int c = 0; c < consumers; c++) {
+                long[] counts = observed[c];
+                threads[c] = new Thread(() -> {
+                    for (int i = 0; i < items / 10 / consumers; i++) counts[queue.dequeue()]++;
+                });
+                threads[c].start();
+            }
+            for (Thread consumer : threads) consumer.join();
+        }
+
+        double chiSquare = 0;
+        long draws = (long) rounds * (items / 10 / consumers) * consumers;
+        for (int p = 0; p < shares.length; p++) {
+            long total = 0;
+            for (long[] counts : observed) total += counts[p];
+            double expected = draws * shares[p];
+            chiSquare += (total - expected) * (total - expected) / expected;
+        }
+        // 16.27 is the 0.999 quantile of chi-square with 3 degrees of freedom
+        System.out.printf("chi-square = %.3f (%s)%n", chiSquare, chiSquare < 16.27 ? "uniform" : "NOT uniform");
+
+        // A single producer puts every item on one of 64 stripes, where nearly every
+        // blind draw misses; a dequeue should still cost within a small factor of one on
+        // a single stripe, not 64 times as many draws
+        double crowded = Double.MAX_VALUE, single = Double.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            crowded = Math.min(crowded, nanosPerDequeue(new ConcurrentRandomizedQueue<>(64), 100_000));
+            single = Math.min(single, nanosPerDequeue(new ConcurrentRandomizedQueue<>(1), 100_000));
+        }
+        System.out.printf("single producer: %.0f ns per dequeue on 64 stripes, %.0f on 1 (%s)%n",
+                crowded, single, crowded < 8 * single ? "bounded" : "NOT bounded");
+    }
+
+    private static double nanosPerDequeue(ConcurrentRandomizedQueue<Integer> queue, int items) {
+        for (int i = 0; i < items; i++) queue.enqueue(i);
+        long start = System.nanoTime();
+        for (int i = 0; i < items; i++) queue.dequeue();
+        return (double) (System.nanoTime() - start) / items;
+    }
+}
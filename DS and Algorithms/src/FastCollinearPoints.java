@@ -18,30 +18,80 @@ public class FastCollinearPoints {
             if (copy[i].compareTo(copy[i + 1]) == 0) throw new IllegalArgumentException("Duplicate points detected");
         }
 
+        // One slope array and one index array serve every origin and are sorted together
+        // by (slope, index), so compares read both arrays in sequence rather than chasing
+        // indices. Each run of equal slopes then lists its points in natural order: the
+        // first is the smallest and the last the largest, with no copy or second sort.
         int n = copy.length;
+        double[] slopes = new double[n];
+        int[] order = new int[n];
         for (int i = 0; i < n; i++) {
             Point origin = copy[i];
-            Point[] sorted = copy.clone();
-            Arrays.sort(sorted, origin.slopeOrder());
-
-            int count = 1;
-            for (int j = 1; j < sorted.length - 1; j++) {
-                if (origin.slopeTo(sorted[j]) == origin.slopeTo(sorted[j + 1])) {
-                    count++;
-                } else {
-                    if (count >= 3) {
-                        Point[] collinear = Arrays.copyOfRange(sorted, j - count + 1, j + 1);
-                        Arrays.sort(collinear);
-                        if (origin.compareTo(collinear[0]) < 0) {
-                            segments.add(new LineSegment(origin, collinear[collinear.length - 1]));
-                        }
-                    }
-                    count = 1;
+            for (int j = 0; j < n; j++) {
+                slopes[j] = origin.slopeTo(copy[j]);
+                order[j] = j;
+            }
+            sort(slopes, order, 0, n - 1);
+
+            // Position 0 holds the origin itself, the only point at slope -infinity
+            for (int start = 1, end; start < n; start = end) {
+                end = start + 1;
+                while (end < n && slopes[end] == slopes[start]) end++;
+                // Report each segment once, from its smallest point
+                if (end - start >= 3 && i < order[start]) {
+                    segments.add(new LineSegment(origin, copy[order[end - 1]]));
                 }
             }
         }
     }
 
+    // True if position a sorts before position b: by slope, then by index. Slopes are never
+    // NaN and never -0.0, so primitive comparisons agree with Double.compare.
+    private static boolean less(double[] slopes, int[] order, int a, int b) {
+        return slopes[a] < slopes[b] || (slopes[a] == slopes[b] && order[a] < order[b]);
+    }
+
+    // Quicksort of positions lo..hi of both arrays by less(), with a median-of-three pivot
+    // and insertion sort for short ranges. Keys are distinct, so there are no runs of equal
+    // keys to degrade on. Recurses into the smaller part only, keeping the stack O(log n).
+    private static void sort(double[] slopes, int[] order, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (less(slopes, order, mid, lo)) swap(slopes, order, mid, lo);
+            if (less(slopes, order, hi, lo)) swap(slopes, order, hi, lo);
+            if (less(slopes, order, hi, mid)) swap(slopes, order, hi, mid);
+            double pivotSlope = slopes[mid];
+            int pivotIndex = order[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (slopes[i] < pivotSlope || (slopes[i] == pivotSlope && order[i] < pivotIndex)) i++;
+                while (pivotSlope < slopes[j] || (pivotSlope == slopes[j] && pivotIndex < order[j])) j--;
+                if (i <= j) swap(slopes, order, i++, j--);
+            }
+            if (j - lo < hi - i) {
+                sort(slopes, order, lo, j);
+                lo = i;
+            } else {
+                sort(slopes, order, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && less(slopes, order, j, j - 1); j--) {
+                swap(slopes, order, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] slopes, int[] order, int i, int j) {
+        double slope = slopes[i];
+        slopes[i] = slopes[j];
+        slopes[j] = slope;
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
     public int numberOfSegments() {
         return segments.size();
     }
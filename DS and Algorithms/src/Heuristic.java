@@ -0,0 +1,130 @@
+// Lower bound on the number of moves from a board to the goal, used by Solver as the h
+// in f = g + h. Implementations must never overestimate, or solutions stop being optimal.
+// Consistency (one move lowers the estimate by at most one) is not required: A*,
+// BIDIRECTIONAL and HDA* keep the fewest moves each board was reached with and expand a
+// board again when a shorter path arrives, and IDA* keeps no boards at all. With a
+// consistent heuristic A* simply never reopens one.
+public interface Heuristic {
+    // Sum of the Manhattan distances of the tiles to their goal squares
+    Heuristic MANHATTAN = new Heuristic() {
+        public int estimate(Board board) {
+            return board.manhattan();
+        }
+
+        public int estimate(char[] tiles, int n) {
+            return manhattan(tiles, n);
+        }
+
+        public int update(char[] tiles, int n, int h, int tile, int from, int to) {
+            return h - distance(tile, from, n) + distance(tile, to, n);
+        }
+    };
+
+    // Manhattan distance plus two moves for every tile that has to leave its goal row
+    // or column to let another tile in the same line past it
+    Heuristic LINEAR_CONFLICT = new Heuristic() {
+        public int estimate(Board board) {
+            return board.manhattan() + linearConflicts(board.tiles(), board.dimension());
+        }
+
+        public int estimate(char[] tiles, int n) {
+            return manhattan(tiles, n) + linearConflicts(tiles, n);
+        }
+
+        // Only the two lines the tile crossed change: its old and new rows after a
+        // vertical move, its old and new columns after a horizontal one. Their conflicts
+        // before the move are counted by undoing it for a moment.
+        public int update(char[] tiles, int n, int h, int tile, int from, int to) {
+            boolean rows = from % n == to % n;
+            int a = rows ? from / n : from % n;
+            int b = rows ? to / n : to % n;
+            int after = lineConflicts(tiles, n, a, rows) + lineConflicts(tiles, n, b, rows);
+            tiles[from] = (char) tile;
+            tiles[to] = 0;
+            int before = lineConflicts(tiles, n, a, rows) + lineConflicts(tiles, n, b, rows);
+            tiles[to] = (char) tile;
+            tiles[from] = 0;
+            return h - distance(tile, from, n) + distance(tile, to, n) - before + after;
+        }
+    };
+
+    // tiles holds the board row-major with 0 for the blank
+    int estimate(char[] tiles, int n);
+
+    default int estimate(Board board) {
+        return estimate(board.tiles(), board.dimension());
+    }
+
+    // The estimate after tile slid from one square to the other; tiles already shows the
+    // move and h is the estimate before it. Searches that move tiles in place call this
+    // instead of estimate, so heuristics that can work out the change cheaply should.
+    // An implementation may change tiles while it works, as long as it restores them.
+    default int update(char[] tiles, int n, int h, int tile, int from, int to) {
+        return estimate(tiles, n);
+    }
+
+    static int manhattan(char[] tiles, int n) {
+        int sum = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int tile = tiles[i];
+            if (tile != 0) sum += distance(tile, i, n);
+        }
+        return sum;
+    }
+
+    // Manhattan distance from square to the goal square of tile
+    private static int distance(int tile, int square, int n) {
+        int goal = tile - 1;
+        return Math.abs(goal / n - square / n) + Math.abs(goal % n - square % n);
+    }
+
+    // In every row, the tiles that belong to that row must keep their goal columns in
+    // increasing order; all but a longest increasing run of them have to step out of the
+    // row and back, two extra moves each. Columns likewise.
+    static int linearConflicts(char[] tiles, int n) {
+        int extra = 0;
+        for (int line = 0; line < n; line++) {
+            extra += lineConflicts(tiles, n, line, true) + lineConflicts(tiles, n, line, false);
+        }
+        return extra;
+    }
+
+    // The extra moves for one row, or one column if row is false
+    static int lineConflicts(char[] tiles, int n, int line, boolean row) {
+        if (n > 64) return wideLineConflicts(tiles, n, line, row);
+        // Patience sorting with the pile tops as bits: values are distinct goal indices
+        // below 64, and each one replaces the smallest top above it
+        long tops = 0;
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int tile = row ? tiles[line * n + i] : tiles[i * n + line];
+            if (tile == 0 || (row ? (tile - 1) / n : (tile - 1) % n) != line) continue;
+            int value = row ? (tile - 1) % n : (tile - 1) / n;
+            tops &= ~Long.lowestOneBit(tops & (-1L << value));
+            tops |= 1L << value;
+            length++;
+        }
+        return 2 * (length - Long.bitCount(tops));
+    }
+
+    // Lines longer than a long has bits keep the tops in a fresh array
+    private static int wideLineConflicts(char[] tiles, int n, int line, boolean row) {
+        int[] tops = new int[n];
+        int length = 0, size = 0;
+        for (int i = 0; i < n; i++) {
+            int tile = row ? tiles[line * n + i] : tiles[i * n + line];
+            if (tile == 0 || (row ? (tile - 1) / n : (tile - 1) % n) != line) continue;
+            int value = row ? (tile - 1) % n : (tile - 1) / n;
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tops[mid] < value) lo = mid + 1;
+                else hi = mid;
+            }
+            tops[lo] = value;
+            if (lo == size) size++;
+            length++;
+        }
+        return 2 * (length - size);
+    }
+}
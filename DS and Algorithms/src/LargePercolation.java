@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Percolation for grids with more than 2^31 sites. Sites are addressed by long
+// indices, open flags are packed 64 to a word, and the union-find can live in
+// memory-mapped files so the heap stays small whatever n is.
+public class LargePercolation {
+    private static final byte TOP = 1;
+    private static final byte BOTTOM = 2;
+    private static final int RANK_SHIFT = 2;
+
+    private final long n;
+    private final long sites;
+    private final BigBuffer open;     // Bitset of open sites
+    private final BigBuffer parent;   // parent + 1 per site, so a zero-filled buffer is all roots
+    private final BigBuffer status;   // TOP/BOTTOM bits and union-by-rank rank, valid at roots only
+    private long openSiteCount;
+    private boolean percolates;
+
+    // Keeps every array on the heap, in segments of at most 1 GiB
+    public LargePercolation(long n) {
+        this.n = n;
+        this.sites = siteCount(n);
+        this.open = BigBuffer.allocate(bitsetBytes(sites));
+        this.parent = BigBuffer.allocate(sites * Long.BYTES);
+        this.status = BigBuffer.allocate(sites);
+    }
+
+    // Maps every array onto a file in directory; existing files are truncated
+    public LargePercolation(long n, Path directory) {
+        if (directory == null) throw new IllegalArgumentException("directory cannot be null");
+        this.n = n;
+        this.sites = siteCount(n);
+        this.open = BigBuffer.map(directory.resolve("open.bin"), bitsetBytes(sites));
+        this.parent = BigBuffer.map(directory.resolve("parent.bin"), sites * Long.BYTES);
+        this.status = BigBuffer.map(directory.resolve("status.bin"), sites);
+    }
+
+    private static long siteCount(long n) {
+        if (n <= 0) throw new IllegalArgumentException("n must be > 0");
+        try {
+            return Math.multiplyExact(n, n);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("n is too large", e);
+        }
+    }
+
+    private static long bitsetBytes(long sites) {
+        return ((sites + 63) >>> 6) * Long.BYTES;
+    }
+
+    private long xyTo1D(long row, long col) {
+        if (row < 1 || row > n || col < 1 || col > n)
+            throw new IllegalArgumentException("Invalid row or col");
+        return (row - 1) * n + (col - 1);
+    }
+
+    private void validate(long index) {
+        if (index < 0 || index >= sites)
+            throw new IllegalArgumentException("Invalid index");
+    }
+
+    public void open(long row, long col) {
+        openSite(xyTo1D(row, col));
+    }
+
+    // Opens the site at 0-based flat index row * n + col
+    public void open(long index) {
+        validate(index);
+        openSite(index);
+    }
+
+    private void openSite(long index) {
+        if (opened(index)) return;
+        long word = open.getLong((index >>> 6) * Long.BYTES);
+        open.putLong((index >>> 6) * Long.BYTES, word | (1L << index));
+        openSiteCount++;
+
+        long row = index / n;
+        long col = index - row * n;
+
+        byte bits = 0;
+        if (row == 0) bits |= TOP;
+        if (row == n - 1) bits |= BOTTOM;
+        status.put(index, bits);
+
+        // Connect to neighbors
+        if (row > 0 && opened(index - n)) union(index, index - n);
+        if (row < n - 1 && opened(index + n)) union(index, index + n);
+        if (col > 0 && opened(index - 1)) union(index, index - 1);
+        if (col < n - 1 && opened(index + 1)) union(index, index + 1);
+
+        if ((status.get(find(index)) & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+    }
+
+    private boolean opened(long index) {
+        return (open.getLong((index >>> 6) * Long.BYTES) & (1L << index)) != 0;
+    }
+
+    public boolean isOpen(long row, long col) {
+        return opened(xyTo1D(row, col));
+    }
+
+    public boolean isOpen(long index) {
+        validate(index);
+        return opened(index);
+    }
+
+    public boolean isFull(long row, long col) {
+        return full(xyTo1D(row, col));
+    }
+
+    public boolean isFull(long index) {
+        validate(index);
+        return full(index);
+    }
+
+    private boolean full(long index) {
+        return opened(index) && (status.get(find(index)) & TOP) != 0;
+    }
+
+    public long numberOfOpenSites() {
+        return openSiteCount;
+    }
+
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private long parentOf(long p) {
+        long link = parent.getLong(p * Long.BYTES);
+        return link == 0 ? p : link - 1;
+    }
+
+    private void setParent(long p, long q) {
+        parent.putLong(p * Long.BYTES, q + 1);
+    }
+
+    // Path halving
+    private long find(long p) {
+        long up = parentOf(p);
+        while (p != up) {
+            long grand = parentOf(up);
+            setParent(p, grand);
+            p = grand;
+            up = parentOf(p);
+        }
+        return p;
+    }
+
+    // Union by rank; the surviving root inherits the TOP/BOTTOM bits of both components
+    private void union(long p, long q) {
+        long rootP = find(p);
+        long rootQ = find(q);
+        if (rootP == rootQ) return;
+        int statusP = status.get(rootP) & 0xFF;
+        int statusQ = status.get(rootQ) & 0xFF;
+        if ((statusP >>> RANK_SHIFT) < (statusQ >>> RANK_SHIFT)) {
+            long swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+            int swapStatus = statusP;
+            statusP = statusQ;
+            statusQ = swapStatus;
+        }
+        setParent(rootQ, rootP);
+        statusP |= statusQ & (TOP | BOTTOM);
+        if ((statusP >>> RANK_SHIFT) == (statusQ >>> RANK_SHIFT)) statusP += 1 << RANK_SHIFT;
+        status.put(rootP, (byte) statusP);
+    }
+
+    // A long-indexed byte array split into ByteBuffer segments, either on the heap or
+    // mapped from a file. Segments are a power of two bytes, so aligned longs never
+    // straddle two of them.
+    private static final class BigBuffer {
+        private static final int SEGMENT_SHIFT = 30;
+        private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+        private final ByteBuffer[] segments;
+
+        private BigBuffer(ByteBuffer[] segments) {
+            this.segments = segments;
+        }
+
+        static BigBuffer allocate(long bytes) {
+            ByteBuffer[] segments = new ByteBuffer[segmentCount(bytes)];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = ByteBuffer.allocate(segmentSize(bytes, i));
+            }
+            return new BigBuffer(segments);
+        }
+
+        // The channel can be closed once mapped; the mappings stay valid until collected
+        static BigBuffer map(Path file, long bytes) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer[] segments = new ByteBuffer[segmentCount(bytes)];
+                for (int i = 0; i < segments.length; i++) {
+                    segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            (long) i << SEGMENT_SHIFT, segmentSize(bytes, i));
+                }
+                return new BigBuffer(segments);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map " + file, e);
+            }
+        }
+
+        private static int segmentCount(long bytes) {
+            return (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        }
+
+        private static int segmentSize(long bytes, int segment) {
+            return (int) Math.min(1L << SEGMENT_SHIFT, bytes - ((long) segment << SEGMENT_SHIFT));
+        }
+
+        byte get(long i) {
+            return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & SEGMENT_MASK));
+        }
+
+        void put(long i, byte value) {
+            segments[(int) (i >>> SEGMENT_SHIFT)].put((int) (i & SEGMENT_MASK), value);
+        }
+
+        long getLong(long i) {
+            return segments[(int) (i >>> SEGMENT_SHIFT)].getLong((int) (i & SEGMENT_MASK));
+        }
+
+        void putLong(long i, long value) {
+            segments[(int) (i >>> SEGMENT_SHIFT)].putLong((int) (i & SEGMENT_MASK), value);
+        }
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        LargePercolation percolation = new LargePercolation(3);
+        percolation.open(1, 1);
+        percolation.open(2, 1);
+        percolation.open(3, 1);
+        percolation.open(3, 3);
+        System.out.println("Percolates: " + percolation.percolates()); // true
+        System.out.println("Full (3, 3): " + percolation.isFull(3, 3)); // false
+        System.out.println("Open sites: " + percolation.numberOfOpenSites()); // 4
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+// Site lattice for Percolation: an n x n (x n) grid with a fixed neighbourhood. The
+// system percolates along the first axis, from the first layer (top) to the last
+// (bottom). Neighbours are precomputed as index offsets for each boundary class (which
+// faces a site lies on), and the boundary bits of every coordinate value are tabled too,
+// so open() finds a site's class with one division on a square lattice and then does
+// one table lookup instead of a bounds check per direction.
+public final class Lattice {
+    private final String name;
+    private final int n;
+    private final int dimensions;
+    private final int sites;
+    private final int layer;        // Sites per layer along the first axis
+    private final int[] strides;    // Index stride of each axis, first axis slowest
+    private final int[][] offsets;  // Neighbour offsets by boundary class
+    private final byte[] edges;     // Boundary bits of each coordinate value, see below
+
+    private Lattice(String name, int n, int dimensions, int[][] directions, boolean[] periodic) {
+        if (n <= 0) throw new IllegalArgumentException("n must be > 0");
+        long total = 1;
+        for (int a = 0; a < dimensions; a++) total *= n;
+        if (total > Integer.MAX_VALUE) throw new IllegalArgumentException("n is too large");
+
+        this.name = name;
+        this.n = n;
+        this.dimensions = dimensions;
+        this.sites = (int) total;
+        this.layer = sites / n;
+        this.strides = new int[dimensions];
+        for (int a = dimensions - 1, stride = 1; a >= 0; a--, stride *= n) {
+            strides[a] = stride;
+        }
+
+        // Boundary class: bit 2a is set when the coordinate on axis a is 0, bit 2a + 1
+        // when it is n - 1. A step off a periodic face wraps to the opposite face.
+        this.edges = new byte[n];
+        edges[0] |= 1;
+        edges[n - 1] |= 2;
+        this.offsets = new int[1 << (2 * dimensions)][];
+        for (int c = 0; c < offsets.length; c++) {
+            int[] list = new int[directions.length];
+            int count = 0;
+            for (int[] d : directions) {
+                int offset = 0;
+                boolean valid = true;
+                for (int a = 0; a < dimensions && valid; a++) {
+                    int step = d[a];
+                    if (step < 0 && (c & (1 << (2 * a))) != 0) {
+                        if (periodic[a]) step = n - 1;
+                        else valid = false;
+                    } else if (step > 0 && (c & (2 << (2 * a))) != 0) {
+                        if (periodic[a]) step = -(n - 1);
+                        else valid = false;
+                    }
+                    offset += step * strides[a];
+                }
+                // Tiny periodic lattices can wrap onto the site itself or repeat a neighbour
+                if (valid && offset != 0 && !contains(list, count, offset)) list[count++] = offset;
+            }
+            offsets[c] = Arrays.copyOf(list, count);
+        }
+    }
+
+    private static boolean contains(int[] list, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == value) return true;
+        }
+        return false;
+    }
+
+    // Square grid, von Neumann neighbourhood; what Percolation has always used
+    public static Lattice square4(int n) {
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        return new Lattice("square4", n, 2, directions, new boolean[2]);
+    }
+
+    // Square grid, Moore neighbourhood (diagonals included)
+    public static Lattice square8(int n) {
+        int[][] directions = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        return new Lattice("square8", n, 2, directions, new boolean[2]);
+    }
+
+    // Square grid, von Neumann neighbourhood, left and right sides joined
+    public static Lattice periodic(int n) {
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        return new Lattice("periodic", n, 2, directions, new boolean[]{false, true});
+    }
+
+    // Simple cubic n x n x n lattice with six face neighbours
+    public static Lattice cubic6(int n) {
+        int[][] directions = {{-1, 0, 0}, {1, 0, 0}, {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}};
+        return new Lattice("cubic6", n, 3, directions, new boolean[3]);
+    }
+
+    public static Lattice forName(String name, int n) {
+        switch (name) {
+            case "square4": return square4(n);
+            case "square8": return square8(n);
+            case "periodic": return periodic(n);
+            case "cubic6": return cubic6(n);
+            default: throw new IllegalArgumentException("Unknown lattice: " + name);
+        }
+    }
+
+    // Sites along each axis
+    public int size() {
+        return n;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int sites() {
+        return sites;
+    }
+
+    // True for square4, which Percolation opens with inline bounds checks instead of
+    // the offset tables
+    boolean isSquare4() {
+        return name.equals("square4");
+    }
+
+    public boolean isTop(int site) {
+        return site < layer;
+    }
+
+    public boolean isBottom(int site) {
+        return site >= sites - layer;
+    }
+
+    // The faces site lies on: bit 2a is set when its coordinate on axis a is 0, bit
+    // 2a + 1 when it is n - 1, so bits 0 and 1 mark the top and bottom layers. The last
+    // coordinate needs no division, so a square lattice costs one, for the row.
+    int boundaryClass(int site) {
+        if (dimensions == 2) {
+            int row = site / n;
+            return edges[row] | edges[site - row * n] << 2;
+        }
+        int c = 0;
+        for (int a = 0; a < dimensions - 1; a++) {
+            int coordinate = site / strides[a];
+            site -= coordinate * strides[a];
+            c |= edges[coordinate] << (2 * a);
+        }
+        return c | edges[site] << (2 * (dimensions - 1));
+    }
+
+    // Offsets to add to a site of the given boundary class to reach its neighbours. The
+    // returned array is shared and must not be modified.
+    int[] offsetsOf(int boundaryClass) {
+        return offsets[boundaryClass];
+    }
+
+    public String toString() {
+        return name + "(" + n + ")";
+    }
+}
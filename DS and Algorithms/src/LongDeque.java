@@ -0,0 +1,124 @@
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+// RingDeque specialised to long, so values are stored unboxed in the ring buffer.
+// Deliberately not Iterable<Long>, which would box every element on the way out.
+public class LongDeque {
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] items;
+    private int head;      // Index of the first item
+    private int size;
+    private int modCount;  // Structural changes, checked by iterators
+
+    public LongDeque() {
+        items = new long[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] temp = new long[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, temp, 0, firstPart);
+        System.arraycopy(items, 0, temp, firstPart, size - firstPart);
+        items = temp;
+        head = 0;
+    }
+
+    public void addFirst(long item) {
+        if (size == items.length) resize(2 * items.length);
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+        modCount++;
+    }
+
+    public void addLast(long item) {
+        if (size == items.length) resize(2 * items.length);
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+        modCount++;
+    }
+
+    public long removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        modCount++;
+        shrink();
+        return item;
+    }
+
+    public long removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        long item = items[(head + size - 1) & (items.length - 1)];
+        size--;
+        modCount++;
+        shrink();
+        return item;
+    }
+
+    private void shrink() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) resize(items.length / 2);
+    }
+
+    // Front to back, without allocating
+    public void forEach(LongConsumer action) {
+        if (action == null) throw new IllegalArgumentException();
+        int expectedModCount = modCount;
+        int mask = items.length - 1;
+        for (int i = 0; i < size; i++) {
+            action.accept(items[(head + i) & mask]);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    // Fails fast if the deque is modified other than through this iterator
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private final int expectedModCount = modCount;
+            private int current = 0;
+
+            public boolean hasNext() {
+                return current < size;
+            }
+
+            public long nextLong() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                return items[(head + current++) & (items.length - 1)];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        LongDeque deque = new LongDeque();
+        deque.addFirst(1);
+        deque.addLast(2);
+        deque.addFirst(0);
+        System.out.println("Size: " + deque.size()); // 3
+        for (int i = 3; i < 100; i++) deque.addLast(i);
+        long[] sum = {0};
+        deque.forEach(item -> sum[0] += item);
+        System.out.println("Sum: " + sum[0]); // 4950
+        System.out.println("Remove First: " + deque.removeFirst()); // 0
+        System.out.println("Remove Last: " + deque.removeLast()); // 99
+    }
+}
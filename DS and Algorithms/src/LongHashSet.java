@@ -0,0 +1,135 @@
+// Set of long keys in one open-addressing table with linear probing, so membership
+// tests and inserts touch no boxed Long and usually a single cache line. Zero marks an
+// empty slot; the key zero itself is tracked by a flag. The slots in use are also listed,
+// so clearing a set reused across searches costs the keys it held, not its capacity.
+public class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] used;     // Indices of the nonzero keys, in insertion order
+    private int usedCount;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    // Room for expected keys before the first rehash
+    public LongHashSet(int expected) {
+        if (expected < 0) throw new IllegalArgumentException("expected must be >= 0");
+        allocate(capacityFor(expected));
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expected) capacity *= 2;
+        return capacity;
+    }
+
+    // A full table holds one key past half before it rehashes
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new int[capacity / 2 + 1];
+        usedCount = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return containsZero;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+
+    // Returns false if the key was already present
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        used[usedCount++] = i;
+        if (2 * ++size > keys.length) rehash();
+        return true;
+    }
+
+    // Keeps the table, so a set reused across searches does not grow it again, unless it
+    // is over 8 times the size these keys needed; then it shrinks to twice that
+    public void clear() {
+        int fit = capacityFor(size);
+        if (keys.length > 8 * fit) {
+            allocate(2 * fit);
+        } else {
+            for (int k = 0; k < usedCount; k++) keys[used[k]] = 0;
+            usedCount = 0;
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldUsed = used;
+        int oldCount = usedCount;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int k = 0; k < oldCount; k++) {
+            long key = oldKeys[oldUsed[k]];
+            int i = mix(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+            used[usedCount++] = i;
+        }
+    }
+
+    // Packed boards differ mostly in their low bits, so spread every bit into the index
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        LongHashSet set = new LongHashSet();
+        for (long i = -500; i < 500; i++) set.add(i * 16);
+        System.out.println("Size: " + set.size()); // 1000
+        System.out.println("Add again: " + set.add(32)); // false
+        System.out.println("Contains 0: " + set.contains(0)); // true
+        System.out.println("Contains 8: " + set.contains(8)); // false
+        set.clear();
+        System.out.println("Size after clear: " + set.size()); // 0
+        System.out.println("Contains 32 after clear: " + set.contains(32)); // false
+
+        // Reused for a million keys, then for a few: clear frees only the slots it used,
+        // and the second clear gives the large table back
+        for (long i = 1; i <= 1_000_000; i++) set.add(i);
+        set.clear();
+        for (long i = 1; i <= 10; i++) set.add(i * 7);
+        long start = System.nanoTime();
+        for (int round = 0; round < 1000; round++) {
+            set.clear();
+            for (long i = 1; i <= 10; i++) set.add(i * 7);
+        }
+        System.out.printf("1000 small rounds: %.3f ms%n", (System.nanoTime() - start) / 1e6);
+        System.out.println("Capacity after small rounds: " + set.keys.length); // 64
+        System.out.println("Contains 70: " + set.contains(70) + ", 1: " + set.contains(1)); // true, false
+    }
+}
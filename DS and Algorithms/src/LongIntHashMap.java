@@ -0,0 +1,140 @@
+// Map from long keys to int values in open-addressing tables with linear probing, laid
+// out like LongHashSet: keys and values sit in parallel arrays, zero marks an empty key
+// slot, the key zero itself is kept aside, and the slots in use are listed so clearing a
+// map reused across searches costs the keys it held, not its capacity.
+public class LongIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int[] used;     // Indices of the nonzero keys, in insertion order
+    private int usedCount;
+    private int size;
+    private boolean containsZero;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    // Room for expected keys before the first rehash
+    public LongIntHashMap(int expected) {
+        if (expected < 0) throw new IllegalArgumentException("expected must be >= 0");
+        allocate(capacityFor(expected));
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expected) capacity *= 2;
+        return capacity;
+    }
+
+    // A full table holds one key past half before it rehashes
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new int[capacity / 2 + 1];
+        usedCount = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The value of key, or missing if it has none
+    public int get(long key, int missing) {
+        if (key == 0) return containsZero ? zeroValue : missing;
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return missing;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!containsZero) size++;
+            containsZero = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        used[usedCount++] = i;
+        if (2 * ++size > keys.length) rehash();
+    }
+
+    // Keeps the tables, so a map reused across searches does not grow them again, unless
+    // they are over 8 times the size these keys needed; then they shrink to twice that
+    public void clear() {
+        int fit = capacityFor(size);
+        if (keys.length > 8 * fit) {
+            allocate(2 * fit);
+        } else {
+            for (int k = 0; k < usedCount; k++) keys[used[k]] = 0;
+            usedCount = 0;
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldUsed = used;
+        int oldCount = usedCount;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int k = 0; k < oldCount; k++) {
+            long key = oldKeys[oldUsed[k]];
+            int i = mix(key) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[oldUsed[k]];
+            used[usedCount++] = i;
+        }
+    }
+
+    // Packed boards differ mostly in their low bits, so spread every bit into the index
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long i = -500; i < 500; i++) map.put(i * 16, (int) i);
+        System.out.println("Size: " + map.size()); // 1000
+        map.put(32, 7);
+        System.out.println("Size after replace: " + map.size()); // 1000
+        System.out.println("Get 32: " + map.get(32, -1)); // 7
+        System.out.println("Get 0: " + map.get(0, -1)); // 0
+        System.out.println("Get -160: " + map.get(-160, -1)); // -10
+        System.out.println("Get 8: " + map.get(8, -1)); // -1
+        map.clear();
+        System.out.println("Size after clear: " + map.size()); // 0
+        System.out.println("Get 32 after clear: " + map.get(32, -1)); // -1
+
+        // Reused for a million keys, then for a few: the second clear gives the large
+        // tables back
+        for (long i = 1; i <= 1_000_000; i++) map.put(i, (int) i);
+        map.clear();
+        for (long i = 1; i <= 10; i++) map.put(i * 7, (int) i);
+        map.clear();
+        System.out.println("Capacity after small round: " + map.keys.length); // 64
+    }
+}
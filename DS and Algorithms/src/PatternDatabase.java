@@ -0,0 +1,330 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Additive disjoint pattern database heuristic. The tiles are split into groups; for each
+// group a table holds, for every placement of the group's tiles, the fewest moves of
+// those tiles needed to bring them home (moves of other tiles are free). Groups share no
+// tiles, so the table values of all groups add up to a lower bound.
+//
+// The bound is not consistent: a table entry is the minimum over where the blank is, and
+// one move can take the blank from a square where the group is nearly home to one where
+// it is far from it, dropping the sum by more than one. Solver reopens boards for that.
+//
+// Tables are built once by a 0-1 BFS from the goal, written to one binary file, and
+// memory-mapped when loaded, so startup costs no parsing and the pages are shared.
+public class PatternDatabase implements Heuristic {
+    private static final int MAGIC = 0x50444233;  // "PDB3"
+
+    private final int n;
+    private final int[][] groups;
+    private final ByteBuffer[] tables;
+    // Per tile: its group (-1 for none) and its index in that group. Per group and index:
+    // the place value of that tile's digit in the rank.
+    private final int[] groupOf;
+    private final int[] indexOf;
+    private final int[][] weights;
+
+    private PatternDatabase(int n, int[][] groups, ByteBuffer[] tables) {
+        this.n = n;
+        this.groups = groups;
+        this.tables = tables;
+        int cells = n * n;
+        this.groupOf = new int[cells];
+        this.indexOf = new int[cells];
+        this.weights = new int[groups.length][];
+        Arrays.fill(groupOf, -1);
+        for (int g = 0; g < groups.length; g++) {
+            int k = groups[g].length;
+            weights[g] = new int[k];
+            int weight = 1;
+            for (int i = k - 1; i >= 0; i--) {
+                groupOf[groups[g][i]] = g;
+                indexOf[groups[g][i]] = i;
+                weights[g][i] = weight;
+                weight *= cells - i;
+            }
+        }
+    }
+
+    // The usual partitions: 4-4 for the 8-puzzle and 6-6-3 for the 15-puzzle
+    public static int[][] defaultGroups(int n) {
+        if (n == 3) return new int[][]{{1, 2, 3, 4}, {5, 6, 7, 8}};
+        if (n == 4) return new int[][]{{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+        throw new IllegalArgumentException("No default partition for n = " + n);
+    }
+
+    public static PatternDatabase build(int n, int[][] groups) {
+        if (n < 2) throw new IllegalArgumentException("n must be >= 2");
+        if (groups == null) throw new IllegalArgumentException("groups cannot be null");
+        boolean[] used = new boolean[n * n];
+        for (int[] group : groups) {
+            if (group.length == 0 || group.length >= n * n - 1)
+                throw new IllegalArgumentException("Invalid group size");
+            for (int tile : group) {
+                if (tile < 1 || tile >= n * n || used[tile])
+                    throw new IllegalArgumentException("Groups must be disjoint sets of tiles");
+                used[tile] = true;
+            }
+        }
+        ByteBuffer[] tables = new ByteBuffer[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            tables[g] = ByteBuffer.wrap(buildTable(n * n, groups[g].clone()));
+        }
+        return new PatternDatabase(n, deepCopy(groups), tables);
+    }
+
+    private static int[][] deepCopy(int[][] groups) {
+        int[][] copy = new int[groups.length][];
+        for (int g = 0; g < groups.length; g++) {
+            copy[g] = groups[g].clone();
+        }
+        return copy;
+    }
+
+    // Abstract states are the squares of the group's tiles and then of the blank, ranked
+    // as a partial permutation, so the blank is the last and fastest-varying digit and the
+    // states of one placement of the group sit in a block of cells - k entries. Moving a
+    // group tile costs 1 and moving any other tile costs 0. Level d is found by visiting
+    // the blocks given entries at d, spreading d over the squares the blank reaches without
+    // moving a group tile, which stays inside the block, and then marking d + 1 on the
+    // placements one group move away. The table keeps the minimum of each block.
+    private static byte[] buildTable(int cells, int[] group) {
+        int k = group.length;
+        int n = (int) Math.round(Math.sqrt(cells));
+        int blankRadix = cells - k;
+        int placements = (int) permutations(cells, k);
+        byte[] distance = new byte[(int) permutations(cells, k + 1)];
+        Arrays.fill(distance, (byte) -1);
+
+        int[] squares = new int[k];
+        boolean[] taken = new boolean[cells];
+        for (int i = 0; i < k; i++) {
+            squares[i] = group[i] - 1;
+        }
+        int start = rank(squares, cells);
+        distance[start * blankRadix + blankRadix - 1] = 0;  // Blank on the last square
+        long[] level = new long[(placements + 63) / 64];      // Placements with entries at d
+        long[] nextLevel = new long[level.length];
+        level[start >>> 6] |= 1L << start;
+
+        int[] tileAt = new int[cells];      // Group index on each square, -1 if none
+        int[] free = new int[blankRadix];   // The squares the blank can be on, by digit
+        int[] digitOf = new int[cells];     // The inverse of free
+        int[] stack = new int[blankRadix];
+        int[] offsets = {-n, n, -1, 1};
+        for (int d = 0; ; d++) {
+            boolean reached = false;
+            for (int w = 0; w < level.length; w++) {
+                for (long bits = level[w]; bits != 0; bits &= bits - 1) {
+                    int placement = 64 * w + Long.numberOfTrailingZeros(bits);
+                    int base = placement * blankRadix;
+                    int top = 0;
+                    for (int j = 0; j < blankRadix; j++) {
+                        if ((distance[base + j] & 0xFF) == d) stack[top++] = j;
+                    }
+
+                    unrank(placement, cells, squares, taken);
+                    Arrays.fill(tileAt, -1);
+                    for (int i = 0; i < k; i++) tileAt[squares[i]] = i;
+                    for (int square = 0, j = 0; square < cells; square++) {
+                        if (tileAt[square] >= 0) continue;
+                        free[j] = square;
+                        digitOf[square] = j++;
+                    }
+
+                    while (top > 0) {
+                        int blank = free[stack[--top]];
+                        for (int offset : offsets) {
+                            int target = blank + offset;
+                            if (target < 0 || target >= cells) continue;
+                            if ((offset == -1 || offset == 1) && target / n != blank / n) continue;
+                            int i = tileAt[target];
+                            if (i < 0) {
+                                // Another tile slides into the blank: same placement, free
+                                int next = base + digitOf[target];
+                                if ((distance[next] & 0xFF) > d) {
+                                    distance[next] = (byte) d;
+                                    stack[top++] = digitOf[target];
+                                }
+                                continue;
+                            }
+                            // Group tile i slides into the blank, which takes its square
+                            squares[i] = blank;
+                            int below = 0;
+                            for (int square : squares) {
+                                if (square < target) below++;
+                            }
+                            int moved = rank(squares, cells);
+                            squares[i] = target;
+                            int next = moved * blankRadix + target - below;
+                            if (distance[next] == -1) {
+                                distance[next] = (byte) (d + 1);
+                                nextLevel[moved >>> 6] |= 1L << moved;
+                                reached = true;
+                            }
+                        }
+                    }
+                }
+            }
+            if (!reached) break;
+            long[] temp = level;
+            level = nextLevel;
+            nextLevel = temp;
+            Arrays.fill(nextLevel, 0);
+        }
+
+        byte[] table = new byte[placements];
+        for (int placement = 0; placement < placements; placement++) {
+            int min = 0xFF;
+            for (int j = 0; j < blankRadix; j++) {
+                min = Math.min(min, distance[placement * blankRadix + j] & 0xFF);
+            }
+            table[placement] = (byte) min;
+        }
+        return table;
+    }
+
+    // cells! / (cells - count)!
+    private static long permutations(int cells, int count) {
+        long product = 1;
+        for (int i = 0; i < count; i++) {
+            product *= cells - i;
+        }
+        if (product > Integer.MAX_VALUE) throw new IllegalArgumentException("Group too large");
+        return product;
+    }
+
+    // Mixed-radix rank of distinct squares: digit i counts the free squares below squares[i]
+    private static int rank(int[] squares, int cells) {
+        int rank = 0;
+        for (int i = 0; i < squares.length; i++) {
+            int digit = squares[i];
+            for (int j = 0; j < i; j++) {
+                if (squares[j] < squares[i]) digit--;
+            }
+            rank = rank * (cells - i) + digit;
+        }
+        return rank;
+    }
+
+    // taken is scratch space of length cells, left all false
+    private static void unrank(int rank, int cells, int[] squares, boolean[] taken) {
+        int length = squares.length;
+        for (int i = length - 1; i >= 0; i--) {
+            squares[i] = rank % (cells - i);
+            rank /= cells - i;
+        }
+        // Turn each digit back into a square by skipping the squares already taken
+        for (int i = 0; i < length; i++) {
+            int digit = squares[i];
+            int square = 0;
+            while (taken[square] || digit > 0) {
+                if (!taken[square]) digit--;
+                square++;
+            }
+            taken[square] = true;
+            squares[i] = square;
+        }
+        for (int square : squares) taken[square] = false;
+    }
+
+    public void save(Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(groups.length);
+            for (int[] group : groups) {
+                out.writeInt(group.length);
+                for (int tile : group) out.writeInt(tile);
+            }
+            for (ByteBuffer table : tables) {
+                for (int i = 0; i < table.limit(); i++) out.writeByte(table.get(i));
+            }
+        }
+    }
+
+    public static PatternDatabase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt() != MAGIC) throw new IOException("Not a pattern database: " + file);
+            int n = data.getInt();
+            int[][] groups = new int[data.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[data.getInt()];
+                for (int i = 0; i < groups[g].length; i++) groups[g][i] = data.getInt();
+            }
+            ByteBuffer[] tables = new ByteBuffer[groups.length];
+            for (int g = 0; g < groups.length; g++) {
+                int size = (int) permutations(n * n, groups[g].length);
+                tables[g] = data.slice(data.position(), size);
+                data.position(data.position() + size);
+            }
+            return new PatternDatabase(n, groups, tables);
+        }
+    }
+
+    public int dimension() {
+        return n;
+    }
+
+    public int estimate(char[] tiles, int n) {
+        if (n != this.n) throw new IllegalArgumentException("Pattern database is for n = " + this.n);
+        int sum = 0;
+        for (int g = 0; g < groups.length; g++) {
+            sum += tables[g].get(rank(tiles, g)) & 0xFF;
+        }
+        return sum;
+    }
+
+    // Only the moved tile's group changes; its rank before the move is found by undoing
+    // the move for a moment
+    public int update(char[] tiles, int n, int h, int tile, int from, int to) {
+        if (n != this.n) throw new IllegalArgumentException("Pattern database is for n = " + this.n);
+        int g = groupOf[tile];
+        if (g < 0) return h;
+        int after = tables[g].get(rank(tiles, g)) & 0xFF;
+        tiles[from] = (char) tile;
+        tiles[to] = 0;
+        int before = tables[g].get(rank(tiles, g)) & 0xFF;
+        tiles[to] = (char) tile;
+        tiles[from] = 0;
+        return h - before + after;
+    }
+
+    // The rank of group g's placement, as rank() computes it, in one pass over the board.
+    // Squares come in increasing order, so the group tiles seen so far are exactly those
+    // on lower squares; a bit per group index tracks them.
+    private int rank(char[] tiles, int g) {
+        int[] weight = weights[g];
+        int rank = 0, found = 0;
+        long seen = 0;
+        for (int square = 0; found < weight.length; square++) {
+            int tile = tiles[square];
+            if (groupOf[tile] != g) continue;
+            int i = indexOf[tile];
+            int digit = square - Long.bitCount(seen & ((1L << i) - 1));
+            rank += digit * weight[i];
+            seen |= 1L << i;
+            found++;
+        }
+        return rank;
+    }
+
+    // Usage: PatternDatabase n file, builds the default partition for n and saves it
+    public static void main(String[] args) throws IOException {
+        int n = Integer.parseInt(args[0]);
+        long start = System.currentTimeMillis();
+        PatternDatabase pdb = build(n, defaultGroups(n));
+        pdb.save(Path.of(args[1]));
+        System.out.println("Built in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -1,52 +1,157 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
 public class Percolation {
+    // Site status bits. OPEN is per site; TOP and BOTTOM are only meaningful at a
+    // component root and record whether the component touches the top or bottom row.
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+    private static final int RANK_SHIFT = 3;  // Union-by-rank rank lives in the upper five bits
+
+    private final Lattice lattice;
+    private final boolean square;  // Lattice is square4, see openSquare
     private final int n;
-    private final WeightedQuickUnionUF uf;
-    private final boolean[] openSites;
+    private final int siteCount;
+    private final int[] parent;   // Union-find links, inlined instead of WeightedQuickUnionUF
+    private final byte[] status;
     private int openSiteCount;
-    private final int topVirtualSite;
-    private final int bottomVirtualSite;
+    private boolean percolates;
 
+    // A single union-find with no virtual sites, so isFull does not suffer from backwash
     public Percolation(int n) {
-        if (n <= 0) throw new IllegalArgumentException("n must be > 0");
-        this.n = n;
-        this.uf = new WeightedQuickUnionUF(n * n + 2);
-        this.openSites = new boolean[n * n];
+        this(Lattice.square4(n));
+    }
+
+    public Percolation(Lattice lattice) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        this.lattice = lattice;
+        this.square = lattice.isSquare4();
+        this.n = lattice.size();
+        this.siteCount = lattice.sites();
+        this.parent = new int[siteCount];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        this.status = new byte[siteCount];
         this.openSiteCount = 0;
-        this.topVirtualSite = n * n;
-        this.bottomVirtualSite = n * n + 1;
     }
 
     private int xyTo1D(int row, int col) {
+        if (lattice.dimensions() != 2)
+            throw new UnsupportedOperationException("row/col addressing needs a 2D lattice");
         if (row < 1 || row > n || col < 1 || col > n)
             throw new IllegalArgumentException("Invalid row or col");
         return (row - 1) * n + (col - 1);
     }
 
+    private void validate(int index) {
+        if (index < 0 || index >= siteCount)
+            throw new IllegalArgumentException("Invalid index");
+    }
+
     public void open(int row, int col) {
-        int index = xyTo1D(row, col);
-        if (openSites[index]) return;
-        openSites[index] = true;
+        openSite(xyTo1D(row, col));
+    }
+
+    // Opens the site at 0-based flat index, row * n + col on a 2D lattice
+    public void open(int index) {
+        validate(index);
+        openSite(index);
+    }
+
+    // Opens every site in the sequence, in order
+    public int openAll(int[] sites) {
+        if (sites == null) throw new IllegalArgumentException("sites cannot be null");
+        return openAll(sites, 0, sites.length);
+    }
+
+    // Opens sites[from] .. sites[to - 1] in order and returns the position of the site
+    // whose opening first made the grid percolate, or -1 if that did not happen in
+    // this range. Sites after that position are still opened.
+    public int openAll(int[] sites, int from, int to) {
+        if (sites == null) throw new IllegalArgumentException("sites cannot be null");
+        if (from < 0 || to > sites.length || from > to)
+            throw new IllegalArgumentException("Invalid range");
+        int limit = siteCount;
+        int i = from;
+        int percolatedAt = -1;
+        if (!percolates) {
+            for (; i < to; i++) {
+                int index = sites[i];
+                if (index < 0 || index >= limit) throw new IllegalArgumentException("Invalid index");
+                openSite(index);
+                if (percolates) {
+                    percolatedAt = i++;
+                    break;
+                }
+            }
+        }
+        for (; i < to; i++) {
+            int index = sites[i];
+            if (index < 0 || index >= limit) throw new IllegalArgumentException("Invalid index");
+            openSite(index);
+        }
+        return percolatedAt;
+    }
+
+    // Index is already validated, so neighbours are addressed directly
+    private void openSite(int index) {
+        if ((status[index] & OPEN) != 0) return;
         openSiteCount++;
+        if (square) openSquare(index);
+        else openOnLattice(index);
+        if ((status[find(index)] & (TOP | BOTTOM)) == (TOP | BOTTOM)) percolates = true;
+    }
 
-        // Connect to virtual top and bottom
-        if (row == 1) uf.union(index, topVirtualSite);
-        if (row == n) uf.union(index, bottomVirtualSite);
+    // Top and bottom layers mark their own component instead of joining virtual sites
+    private void openOnLattice(int index) {
+        int boundary = lattice.boundaryClass(index);
+        byte bits = OPEN;
+        if ((boundary & 1) != 0) bits |= TOP;
+        if ((boundary & 2) != 0) bits |= BOTTOM;
+        status[index] = bits;
 
-        // Connect to neighbors
-        if (row > 1 && isOpen(row - 1, col)) uf.union(index, xyTo1D(row - 1, col));
-        if (row < n && isOpen(row + 1, col)) uf.union(index, xyTo1D(row + 1, col));
-        if (col > 1 && isOpen(row, col - 1)) uf.union(index, xyTo1D(row, col - 1));
-        if (col < n && isOpen(row, col + 1)) uf.union(index, xyTo1D(row, col + 1));
+        for (int offset : lattice.offsetsOf(boundary)) {
+            int neighbor = index + offset;
+            if ((status[neighbor] & OPEN) != 0) union(index, neighbor);
+        }
+    }
+
+    // The default lattice, with its four bounds checks inline: a loop over an offset
+    // table costs it about a fifth of its speed
+    private void openSquare(int index) {
+        int row = index / n;
+        int col = index - row * n;
+
+        byte bits = OPEN;
+        if (row == 0) bits |= TOP;
+        if (row == n - 1) bits |= BOTTOM;
+        status[index] = bits;
+
+        if (row > 0 && (status[index - n] & OPEN) != 0) union(index, index - n);
+        if (row < n - 1 && (status[index + n] & OPEN) != 0) union(index, index + n);
+        if (col > 0 && (status[index - 1] & OPEN) != 0) union(index, index - 1);
+        if (col < n - 1 && (status[index + 1] & OPEN) != 0) union(index, index + 1);
     }
 
     public boolean isOpen(int row, int col) {
-        return openSites[xyTo1D(row, col)];
+        return (status[xyTo1D(row, col)] & OPEN) != 0;
+    }
+
+    public boolean isOpen(int index) {
+        validate(index);
+        return (status[index] & OPEN) != 0;
     }
 
     public boolean isFull(int row, int col) {
-        return uf.find(xyTo1D(row, col)) == uf.find(topVirtualSite);
+        return full(xyTo1D(row, col));
+    }
+
+    public boolean isFull(int index) {
+        validate(index);
+        return full(index);
+    }
+
+    private boolean full(int index) {
+        return (status[index] & OPEN) != 0 && (status[find(index)] & TOP) != 0;
     }
 
     public int numberOfOpenSites() {
@@ -54,6 +159,33 @@ public class Percolation {
     }
 
     public boolean percolates() {
-        return uf.find(topVirtualSite) == uf.find(bottomVirtualSite);
+        return percolates;
+    }
+
+    // Path halving: every other node on the way up is pointed at its grandparent
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    // Union by rank, so no size array is needed next to parent; the surviving root
+    // inherits the TOP/BOTTOM bits of both components
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return;
+        int rankP = (status[rootP] & 0xFF) >>> RANK_SHIFT;
+        int rankQ = (status[rootQ] & 0xFF) >>> RANK_SHIFT;
+        if (rankP < rankQ) {
+            int swap = rootP;
+            rootP = rootQ;
+            rootQ = swap;
+        }
+        parent[rootQ] = rootP;
+        status[rootP] |= status[rootQ] & (TOP | BOTTOM);
+        if (rankP == rankQ) status[rootP] += 1 << RANK_SHIFT;
     }
 }
@@ -1,29 +1,146 @@
-import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
 
 public class PercolationStats {
     private final double[] thresholds;
     private final int trials;
 
+    // How a trial picks the next site to open
+    public enum Sampling {
+        REJECTION,  // uniform site index draws, skipping sites that are already open
+        SHUFFLE     // partial Fisher-Yates shuffle of the site indices, one draw per open
+    }
+
     public PercolationStats(int n, int trials) {
         if (n <= 0 || trials <= 0)
             throw new IllegalArgumentException("n and trials must be > 0");
         this.trials = trials;
         this.thresholds = new double[trials];
 
+        Lattice lattice = Lattice.square4(n);
         for (int t = 0; t < trials; t++) {
-            Percolation percolation = new Percolation(n);
-            while (!percolation.percolates()) {
-                int row = StdRandom.uniform(1, n + 1);
-                int col = StdRandom.uniform(1, n + 1);
-                if (!percolation.isOpen(row, col)) {
-                    percolation.open(row, col);
-                }
+            thresholds[t] = trial(lattice, StdRandomGenerator.INSTANCE, Sampling.REJECTION);
+        }
+    }
+
+    // Seeded trials spread over a fork/join pool. Trial t always draws from the t-th
+    // stream split off the seed, so the results depend on the seed only, not on threads.
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, Sampling.REJECTION);
+    }
+
+    public PercolationStats(int n, int trials, long seed, int threads, Sampling sampling) {
+        this(Lattice.square4(n), trials, seed, threads, sampling);
+    }
+
+    public PercolationStats(Lattice lattice, int trials, long seed, int threads, Sampling sampling) {
+        this(lattice, trials, new SplittableRandom(seed), threads, sampling);
+    }
+
+    // Trial t draws from the t-th generator split off source (for example a seeded
+    // SplittableRandom or RandomGeneratorFactory.of("L64X128MixRandom").create(seed))
+    public PercolationStats(Lattice lattice, int trials, RandomGenerator.SplittableGenerator source,
+                            int threads, Sampling sampling) {
+        if (source == null) throw new IllegalArgumentException("source cannot be null");
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        if (trials <= 0) throw new IllegalArgumentException("trials must be > 0");
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        if (sampling == null) throw new IllegalArgumentException("sampling cannot be null");
+        this.trials = trials;
+        this.thresholds = new double[trials];
+
+        RandomGenerator[] streams = new RandomGenerator[trials];
+        for (int t = 0; t < trials; t++) {
+            streams[t] = source.split();
+        }
+
+        if (threads == 1) {
+            for (int t = 0; t < trials; t++) {
+                thresholds[t] = trial(lattice, streams[t], sampling);
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new TrialTask(lattice, sampling, streams, thresholds, 0, trials));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class TrialTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Lattice lattice;
+        private final Sampling sampling;
+        private final RandomGenerator[] streams;
+        private final double[] thresholds;
+        private final int lo, hi;
+
+        TrialTask(Lattice lattice, Sampling sampling, RandomGenerator[] streams, double[] thresholds, int lo, int hi) {
+            this.lattice = lattice;
+            this.sampling = sampling;
+            this.streams = streams;
+            this.thresholds = thresholds;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo == 1) {
+                thresholds[lo] = trial(lattice, streams[lo], sampling);
+                return;
             }
-            thresholds[t] = (double) percolation.numberOfOpenSites() / (n * n);
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new TrialTask(lattice, sampling, streams, thresholds, lo, mid),
+                    new TrialTask(lattice, sampling, streams, thresholds, mid, hi));
         }
     }
 
+    // Runs one trial on its own random stream and returns the fraction of open sites
+    static double trial(Lattice lattice, RandomGenerator random, Sampling sampling) {
+        if (sampling == Sampling.SHUFFLE) return shuffleTrial(lattice, random);
+        int total = lattice.sites();
+        Percolation percolation = new Percolation(lattice);
+        while (!percolation.percolates()) {
+            int site = random.nextInt(total);
+            if (!percolation.isOpen(site)) {
+                percolation.open(site);
+            }
+        }
+        return (double) percolation.numberOfOpenSites() / total;
+    }
+
+    // Opens sites in the order of a random permutation of all site indices, drawing
+    // each element of the permutation only when it is needed, so no draw is ever wasted.
+    // The permutation is drawn one layer at a time and each chunk is opened in bulk.
+    private static double shuffleTrial(Lattice lattice, RandomGenerator random) {
+        int total = lattice.sites();
+        int chunk = total / lattice.size();
+        int[] sites = new int[total];
+        for (int i = 0; i < total; i++) {
+            sites[i] = i;
+        }
+
+        Percolation percolation = new Percolation(lattice);
+        for (int from = 0; from < total; from += chunk) {
+            int to = Math.min(from + chunk, total);
+            for (int k = from; k < to; k++) {
+                int j = k + random.nextInt(total - k);
+                int site = sites[j];
+                sites[j] = sites[k];
+                sites[k] = site;
+            }
+            int percolatedAt = percolation.openAll(sites, from, to);
+            if (percolatedAt >= 0) return (double) (percolatedAt + 1) / total;
+        }
+        throw new IllegalStateException("Fully open grid does not percolate");
+    }
+
     public double mean() {
         return StdStats.mean(thresholds);
     }
@@ -40,10 +157,18 @@ public class PercolationStats {
         return mean() + (1.96 * stddev() / Math.sqrt(trials));
     }
 
+    // Usage: PercolationStats n trials [seed threads [REJECTION|SHUFFLE [square4|square8|periodic|cubic6]]]
     public static void main(String[] args) {
         int n = Integer.parseInt(args[0]);
         int trials = Integer.parseInt(args[1]);
-        PercolationStats stats = new PercolationStats(n, trials);
+        PercolationStats stats;
+        if (args.length >= 4) {
+            Sampling sampling = args.length >= 5 ? Sampling.valueOf(args[4]) : Sampling.REJECTION;
+            Lattice lattice = args.length >= 6 ? Lattice.forName(args[5], n) : Lattice.square4(n);
+            stats = new PercolationStats(lattice, trials, Long.parseLong(args[2]), Integer.parseInt(args[3]), sampling);
+        } else {
+            stats = new PercolationStats(n, trials);
+        }
 
         System.out.printf("mean = %f%n", stats.mean());
         System.out.printf("stddev = %f%n", stats.stddev());
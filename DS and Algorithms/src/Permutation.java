@@ -1,14 +1,24 @@
-import edu.princeton.cs.algs4.StdIn;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
+// Prints k tokens of the input chosen uniformly at random, in random order. Only a
+// reservoir of k tokens is kept in memory, however long the input is.
+// Usage: Permutation k [file] (a file is memory-mapped; otherwise reads standard input)
 public class Permutation {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         int k = Integer.parseInt(args[0]);
-        RandomizedQueue<String> rq = new RandomizedQueue<>();
-        while (!StdIn.isEmpty()) {
-            rq.enqueue(StdIn.readString());
-        }
-        for (int i = 0; i < k; i++) {
-            System.out.println(rq.dequeue());
+        try (Tokenizer in = args.length > 1
+                ? Tokenizer.map(Path.of(args[1]))
+                : new Tokenizer(Channels.newChannel(System.in))) {
+            RandomGenerator random = new SplittableRandom();
+            RandomizedQueue<String> rq = new RandomizedQueue<>(random);
+            rq.enqueueAll(ReservoirSampler.sampleTokens(in, k, random));
+            for (int i = 0; i < k; i++) {
+                System.out.println(rq.dequeue());
+            }
         }
     }
 }
@@ -1,19 +1,19 @@
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+
+// Prints k (default 1) champions chosen uniformly from the input words.
+// Usage: RandomWord [k [file]] (a file is memory-mapped; otherwise reads standard input)
 public class RandomWord {
-    public static void main(String[] args){
-        String champion = null;
-        int i = 1;
-        while (!StdIn.isEmpty()){
-            String word = StdIn.readString();
-            if(StdRandom.bernoulli(1.0/i)){
-                champion = word;
+    public static void main(String[] args) throws IOException {
+        int k = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        try (Tokenizer in = args.length > 1
+                ? Tokenizer.map(Path.of(args[1]))
+                : new Tokenizer(Channels.newChannel(System.in))) {
+            for (String champion : ReservoirSampler.sampleTokens(in, k, StdRandomGenerator.INSTANCE)) {
+                StdOut.println(champion);
             }
-            i++;
-        }
-        if(champion!=null){
-            StdOut.println(champion);
         }
     }
 }
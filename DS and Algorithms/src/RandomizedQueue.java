@@ -1,14 +1,62 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
-import edu.princeton.cs.algs4.StdRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
+    private static final int DEFAULT_CAPACITY = 2;
+    private static final double DEFAULT_GROWTH = 2.0;
+    private static final double DEFAULT_SHRINK = 0.25;
+
     private Item[] items;
     private int size;
+    private int modCount;  // Structural changes, checked by iterators
+    private final int minCapacity;
+    private final double growthFactor;     // Capacity is multiplied by this when full
+    private final double shrinkThreshold;  // and divided by it at or below this load
+    private final RandomGenerator random;
 
     // Construct an empty randomized queue
     public RandomizedQueue() {
-        items = (Item[]) new Object[2];
+        this(StdRandomGenerator.INSTANCE);
+    }
+
+    // Deterministic for a given seed; the generator is owned by this queue
+    public RandomizedQueue(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    // Draws from random instead of the shared StdRandom, e.g. a SplittableRandom per
+    // queue, ThreadLocalRandom.current() (safe to share between threads), or a seeded
+    // RandomGeneratorFactory.of("Xoroshiro128PlusPlus").create(seed)
+    public RandomizedQueue(RandomGenerator random) {
+        this(DEFAULT_CAPACITY, DEFAULT_GROWTH, DEFAULT_SHRINK, random);
+    }
+
+    // Shrinking leaves the array at most shrinkThreshold * growthFactor full, so a
+    // threshold below 1 / growthFactor keeps a gap before the next grow and alternating
+    // enqueue/dequeue cannot resize back and forth. A threshold of 0 never shrinks.
+    public RandomizedQueue(int initialCapacity, double growthFactor, double shrinkThreshold) {
+        this(initialCapacity, growthFactor, shrinkThreshold, StdRandomGenerator.INSTANCE);
+    }
+
+    public RandomizedQueue(int initialCapacity, double growthFactor, double shrinkThreshold,
+                           RandomGenerator random) {
+        if (random == null) throw new IllegalArgumentException("random cannot be null");
+        if (initialCapacity < 1) throw new IllegalArgumentException("initialCapacity must be > 0");
+        if (!(growthFactor > 1)) throw new IllegalArgumentException("growthFactor must be > 1");
+        if (!(shrinkThreshold >= 0 && shrinkThreshold < 1 / growthFactor))
+            throw new IllegalArgumentException("shrinkThreshold must be in [0, 1 / growthFactor)");
+        this.minCapacity = initialCapacity;
+        this.growthFactor = growthFactor;
+        this.shrinkThreshold = shrinkThreshold;
+        this.random = random;
+        items = (Item[]) new Object[initialCapacity];
         size = 0;
     }
 
@@ -26,45 +74,113 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         items = temp;
     }
 
+    private void ensureCapacity(int needed) {
+        if (needed <= items.length) return;
+        int capacity = items.length;
+        while (capacity < needed) {
+            capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity + 1L, (long) (capacity * growthFactor)));
+        }
+        resize(capacity);
+    }
+
+    // Divides the capacity by growthFactor as many times as the load allows, then
+    // resizes once, so a large dequeue(k) does not leave the array mostly empty
+    private void shrinkIfSparse() {
+        int capacity = items.length;
+        while (capacity > minCapacity && size <= capacity * shrinkThreshold) {
+            capacity = Math.max(minCapacity, (int) (capacity / growthFactor));
+        }
+        if (capacity < items.length) resize(capacity);
+    }
+
     public void enqueue(Item item) {
         if (item == null) throw new IllegalArgumentException();
-        if (size == items.length) resize(2 * items.length);
+        ensureCapacity(size + 1);
         items[size++] = item;
+        modCount++;
+    }
+
+    // Enqueues every item; a collection is sized up front, so the array grows at most once
+    public void enqueueAll(Iterable<? extends Item> all) {
+        if (all == null) throw new IllegalArgumentException();
+        if (all instanceof Collection) ensureCapacity(size + ((Collection<?>) all).size());
+        for (Item item : all) {
+            enqueue(item);
+        }
     }
 
     public Item dequeue() {
         if (isEmpty()) throw new NoSuchElementException();
-        int index = StdRandom.uniform(size);
+        Item item = removeAt(random.nextInt(size));
+        shrinkIfSparse();
+        return item;
+    }
+
+    // Removes k random items, in random order, resizing at most once
+    public List<Item> dequeue(int k) {
+        if (k < 0) throw new IllegalArgumentException("k must be >= 0");
+        if (k > size) throw new NoSuchElementException();
+        List<Item> removed = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            removed.add(removeAt(random.nextInt(size)));
+        }
+        shrinkIfSparse();
+        return removed;
+    }
+
+    private Item removeAt(int index) {
         Item item = items[index];
         items[index] = items[--size];
         items[size] = null; // Avoid loitering
-        if (size > 0 && size == items.length / 4) resize(items.length / 2);
+        modCount++;
         return item;
     }
 
     public Item sample() {
         if (isEmpty()) throw new NoSuchElementException();
-        return items[StdRandom.uniform(size)];
+        return items[random.nextInt(size)];
     }
 
+    // Shuffles lazily: each next() does one Fisher-Yates step over the index permutation,
+    // and only the positions that were swapped are remembered, so stopping after k items
+    // costs O(k) time and memory however large the queue is. Once an eighth of the queue
+    // has been visited the permutation switches to a plain int array, which is smaller
+    // than the map from then on. Fails fast on modification.
     public Iterator<Item> iterator() {
         return new Iterator<>() {
-            private final Item[] shuffled;
+            private final int expectedModCount = modCount;
+            private final int length = size;
+            private IntIntMap swapped = new IntIntMap();
+            private int[] permutation;
             private int current = 0;
 
-            {
-                shuffled = (Item[]) new Object[size];
-                System.arraycopy(items, 0, shuffled, 0, size);
-                StdRandom.shuffle(shuffled);
-            }
-
             public boolean hasNext() {
-                return current < shuffled.length;
+                return current < length;
             }
 
             public Item next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
                 if (!hasNext()) throw new NoSuchElementException();
-                return shuffled[current++];
+                int j = current + random.nextInt(length - current);
+                int index;
+                if (permutation != null) {
+                    index = permutation[j];
+                    permutation[j] = permutation[current];
+                } else {
+                    index = swapped.get(j, j);
+                    if (j != current) swapped.put(j, swapped.get(current, current));
+                    if (swapped.size() > length >>> 3) densify();
+                }
+                current++;
+                return items[index];
+            }
+
+            private void densify() {
+                permutation = new int[length];
+                for (int i = current + 1; i < length; i++) {
+                    permutation[i] = swapped.get(i, i);
+                }
+                swapped = null;
             }
 
             public void remove() {
@@ -73,6 +189,55 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         };
     }
 
+    // Open-addressing int to int map for the iterator's sparse permutation
+    private static final class IntIntMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int count;
+
+        IntIntMap() {
+            Arrays.fill(keys, -1);
+        }
+
+        int size() {
+            return count;
+        }
+
+        int get(int key, int missing) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; keys[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return missing;
+        }
+
+        void put(int key, int value) {
+            if (2 * (count + 1) > keys.length) rehash();
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != -1 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == -1) count++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
     // Unit testing
     public static void main(String[] args) {
         RandomizedQueue<Integer> rq = new RandomizedQueue<>();
@@ -82,5 +247,10 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         System.out.println("Sample: " + rq.sample());
         System.out.println("Dequeue: " + rq.dequeue());
         System.out.println("Size: " + rq.size());
+        rq.enqueueAll(List.of(4, 5, 6, 7));
+        System.out.println("Dequeue 3: " + rq.dequeue(3));
+        System.out.print("Iterate:");
+        for (int item : rq) System.out.print(" " + item);
+        System.out.println();
     }
 }
@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+// Keeps a random sample of k items from a stream of unknown length in O(k) memory.
+// Uniform samplers use Algorithm L (Li, 1994) and weighted ones A-ExpJ (Efraimidis and
+// Spirakis, 2006). Both jump over items that cannot be selected, so the random source is
+// consulted O(k log(N/k)) times rather than once per item. A uniform sampler also tells
+// the caller how many upcoming items it will reject (skipCount), so those need not even
+// be read.
+public class ReservoirSampler<Item> {
+    private final int k;
+    private final boolean weighted;
+    private final RandomGenerator random;
+    private final Object[] items;
+    private final double[] keys;  // Weighted only: log keys, a min-heap parallel to items
+    private int filled;
+    private long seen;
+
+    private long skip;            // Uniform: items still to reject before the next is kept
+    private double w;             // Uniform: Algorithm L's running W
+    private double jump;          // Weighted: weight still to pass before the next is kept
+
+    private ReservoirSampler(int k, boolean weighted, RandomGenerator random) {
+        if (k < 0) throw new IllegalArgumentException("k must be >= 0");
+        if (random == null) throw new IllegalArgumentException("random cannot be null");
+        this.k = k;
+        this.weighted = weighted;
+        this.random = random;
+        this.items = new Object[k];
+        this.keys = weighted ? new double[k] : null;
+    }
+
+    // Every item is equally likely to end up in the sample
+    public static <Item> ReservoirSampler<Item> uniform(int k, RandomGenerator random) {
+        return new ReservoirSampler<>(k, false, random);
+    }
+
+    // Items are drawn without replacement with probability proportional to their weight
+    public static <Item> ReservoirSampler<Item> weighted(int k, RandomGenerator random) {
+        return new ReservoirSampler<>(k, true, random);
+    }
+
+    // Uniform in (0, 1], so its logarithm is finite
+    private double uniform() {
+        return 1.0 - random.nextDouble();
+    }
+
+    // Number of items offered or skipped so far
+    public long seen() {
+        return seen;
+    }
+
+    // How many of the next items a uniform sampler is certain to reject; a caller may drop
+    // them unread and report them through skip(). Always 0 while the reservoir fills.
+    public long skipCount() {
+        if (weighted) throw new IllegalStateException("Weighted samplers must see every weight");
+        return filled < k ? 0 : skip;
+    }
+
+    // Records count items that were dropped without being offered
+    public void skip(long count) {
+        if (count < 0 || count > skipCount()) throw new IllegalArgumentException("Invalid skip count");
+        skip -= count;
+        seen += count;
+    }
+
+    public void offer(Item item) {
+        if (weighted) {
+            offer(item, 1.0);
+            return;
+        }
+        seen++;
+        if (k == 0) return;
+        if (filled < k) {
+            items[filled++] = item;
+            if (filled == k) {
+                w = Math.exp(Math.log(uniform()) / k);
+                nextSkip();
+            }
+        } else if (skip > 0) {
+            skip--;
+        } else {
+            items[random.nextInt(k)] = item;
+            w *= Math.exp(Math.log(uniform()) / k);
+            nextSkip();
+        }
+    }
+
+    private void nextSkip() {
+        double s = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+        skip = s < Long.MAX_VALUE ? (long) s : Long.MAX_VALUE;
+    }
+
+    // Keys are log(u) / weight, the logarithm of A-Res's u^(1/weight); the sample is the k
+    // items with the largest keys
+    public void offer(Item item, double weight) {
+        if (!weighted) throw new IllegalStateException("Uniform samplers take no weights");
+        if (!(weight > 0) || Double.isInfinite(weight)) throw new IllegalArgumentException("weight must be positive");
+        seen++;
+        if (k == 0) return;
+        if (filled < k) {
+            items[filled] = item;
+            keys[filled] = Math.log(uniform()) / weight;
+            siftUp(filled++);
+            if (filled == k) jump = Math.log(uniform()) / keys[0];
+            return;
+        }
+        jump -= weight;
+        if (jump > 0) return;
+
+        // The new key is drawn from the part of the distribution above the threshold key
+        double threshold = Math.exp(keys[0] * weight);
+        double r = threshold + (1 - threshold) * random.nextDouble();
+        items[0] = item;
+        keys[0] = Math.log(r) / weight;
+        siftDown(0);
+        jump = Math.log(uniform()) / keys[0];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= keys[i]) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (2 * i + 1 < filled) {
+            int child = 2 * i + 1;
+            if (child + 1 < filled && keys[child + 1] < keys[child]) child++;
+            if (keys[i] <= keys[child]) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+    }
+
+    // The current sample, fewer than k items if fewer were seen; order is not random
+    public List<Item> sample() {
+        List<Item> sample = new ArrayList<>(filled);
+        for (int i = 0; i < filled; i++) {
+            sample.add((Item) items[i]);
+        }
+        return sample;
+    }
+
+    // Uniform sample of k tokens; rejected tokens are skipped without being decoded
+    public static List<String> sampleTokens(Tokenizer in, int k, RandomGenerator random) {
+        ReservoirSampler<String> sampler = uniform(k, random);
+        if (k == 0) return sampler.sample();
+        while (true) {
+            long skip = sampler.skipCount();
+            if (skip > 0) {
+                long skipped = in.skip(skip);
+                sampler.skip(skipped);
+                if (skipped < skip) break;
+            }
+            if (!in.hasNext()) break;
+            sampler.offer(in.next());
+        }
+        return sampler.sample();
+    }
+
+    // Unit testing: items 0..9 with weight i + 1, sampled 2 at a time; items with larger
+    // weights must be picked more often
+    public static void main(String[] args) {
+        RandomGenerator random = new SplittableRandom(1);
+        int[] counts = new int[10];
+        for (int round = 0; round < 100_000; round++) {
+            ReservoirSampler<Integer> sampler = weighted(2, random);
+            for (int i = 0; i < 10; i++) sampler.offer(i, i + 1);
+            for (int item : sampler.sample()) counts[item]++;
+        }
+        System.out.println("Weighted counts: " + Arrays.toString(counts)); // increasing
+        int[] uniformCounts = new int[10];
+        for (int round = 0; round < 100_000; round++) {
+            ReservoirSampler<Integer> sampler = uniform(2, random);
+            for (int i = 0; i < 10; i++) sampler.offer(i);
+            for (int item : sampler.sample()) uniformCounts[item]++;
+        }
+        System.out.println("Uniform counts: " + Arrays.toString(uniformCounts)); // ~20000 each
+    }
+}
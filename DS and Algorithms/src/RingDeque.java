@@ -0,0 +1,117 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Deque backed by a circular array instead of linked nodes. Capacity is a power of two
+// so wrapping is a mask; it doubles when full and halves when a quarter full.
+public class RingDeque<Item> implements Iterable<Item> {
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items;
+    private int head;      // Index of the first item
+    private int size;
+    private int modCount;  // Structural changes, checked by iterators
+
+    public RingDeque() {
+        items = (Item[]) new Object[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        Item[] temp = (Item[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, temp, 0, firstPart);
+        System.arraycopy(items, 0, temp, firstPart, size - firstPart);
+        items = temp;
+        head = 0;
+    }
+
+    public void addFirst(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        if (size == items.length) resize(2 * items.length);
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+        modCount++;
+    }
+
+    public void addLast(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        if (size == items.length) resize(2 * items.length);
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+        modCount++;
+    }
+
+    public Item removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        Item item = items[head];
+        items[head] = null; // Avoid loitering
+        head = (head + 1) & (items.length - 1);
+        size--;
+        modCount++;
+        shrink();
+        return item;
+    }
+
+    public Item removeLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        int tail = (head + size - 1) & (items.length - 1);
+        Item item = items[tail];
+        items[tail] = null; // Avoid loitering
+        size--;
+        modCount++;
+        shrink();
+        return item;
+    }
+
+    private void shrink() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) resize(items.length / 2);
+    }
+
+    // Fails fast if the deque is modified other than through this iterator
+    public Iterator<Item> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int current = 0;
+
+            public boolean hasNext() {
+                return current < size;
+            }
+
+            public Item next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                return items[(head + current++) & (items.length - 1)];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // Unit testing
+    public static void main(String[] args) {
+        RingDeque<Integer> deque = new RingDeque<>();
+        deque.addFirst(1);
+        deque.addLast(2);
+        deque.addFirst(0);
+        System.out.println("Size: " + deque.size()); // 3
+        for (int i = 3; i < 100; i++) deque.addLast(i);
+        int sum = 0;
+        for (int item : deque) sum += item;
+        System.out.println("Sum: " + sum); // 4950
+        System.out.println("Remove First: " + deque.removeFirst()); // 0
+        System.out.println("Remove Last: " + deque.removeLast()); // 99
+    }
+}
@@ -1,23 +1,46 @@
+import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.MinPQ;
+import edu.princeton.cs.algs4.StdOut;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 public class Solver {
     private final boolean solvable;
     private final int moves;
     private final List<Board> solution;
+    private final Heuristic heuristic;
+    private long expanded;
 
+    // A_STAR keeps every generated board, which is fastest while it fits in the heap; its
+    // frontier is a BucketQueue, while A_STAR_HEAP keeps the original binary heap.
+    // IDA_STAR repeats depth-first searches under a growing bound on moves + heuristic and
+    // only ever holds the current path, so its memory is O(depth) at the cost of
+    // re-expanding the shallow levels on every iteration.
+    // BIDIRECTIONAL grows a second frontier back from the goal and stops once the two
+    // meet on a path no shorter one can beat. It expands about as many boards as A_STAR,
+    // at a higher cost per board, so it is there for comparison rather than speed.
+    // HDA_STAR spreads A* over several threads, each owning the boards that hash to it.
+    public enum Search { A_STAR, A_STAR_HEAP, IDA_STAR, BIDIRECTIONAL, HDA_STAR }
+
+    // Static, so a node holds no reference to its Solver; node() fills in the priority
     private static class SearchNode implements Comparable<SearchNode> {
         private final Board board;
         private final int moves;
         private final int priority;
         private final SearchNode previous;
 
-        public SearchNode(Board board, int moves, SearchNode previous) {
+        public SearchNode(Board board, int moves, SearchNode previous, int priority) {
             this.board = board;
             this.moves = moves;
             this.previous = previous;
-            this.priority = board.manhattan() + moves;
+            this.priority = priority;
         }
 
         public int compareTo(SearchNode other) {
@@ -25,51 +48,535 @@ public class Solver {
         }
     }
 
+    // A node whose priority is moves plus the heuristic estimate for board
+    private SearchNode node(Board board, int moves, SearchNode previous) {
+        return new SearchNode(board, moves, previous, heuristic.estimate(board) + moves);
+    }
+
     public Solver(Board initial) {
+        this(initial, Heuristic.MANHATTAN);
+    }
+
+    // Any admissible heuristic keeps the solution optimal; a tighter one such as
+    // Heuristic.LINEAR_CONFLICT or a PatternDatabase expands fewer nodes
+    public Solver(Board initial, Heuristic heuristic) {
+        this(initial, heuristic, Search.A_STAR);
+    }
+
+    public Solver(Board initial, Heuristic heuristic, Search search) {
+        this(initial, heuristic, search, new Workspace(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public Solver(Board initial, Heuristic heuristic, Search search, Workspace workspace) {
+        this(initial, heuristic, search, workspace, Runtime.getRuntime().availableProcessors());
+    }
+
+    // threads only matters to HDA_STAR
+    public Solver(Board initial, Heuristic heuristic, Search search, int threads) {
+        this(initial, heuristic, search, new Workspace(), threads);
+    }
+
+    // Solvability is settled by permutation parity in O(n^2) before any search starts,
+    // so an unsolvable board costs no search at all
+    private Solver(Board initial, Heuristic heuristic, Search search, Workspace workspace, int threads) {
         if (initial == null) throw new IllegalArgumentException("Initial board cannot be null");
+        if (heuristic == null) throw new IllegalArgumentException("Heuristic cannot be null");
+        if (search == null) throw new IllegalArgumentException("Search cannot be null");
+        if (workspace == null) throw new IllegalArgumentException("Workspace cannot be null");
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        this.heuristic = heuristic;
 
-        MinPQ<SearchNode> pq = new MinPQ<>();
-        MinPQ<SearchNode> twinPQ = new MinPQ<>();
-        pq.insert(new SearchNode(initial, 0, null));
-        twinPQ.insert(new SearchNode(initial.twin(), 0, null));
+        List<Board> path = null;
+        if (initial.isSolvable()) {
+            try {
+                path = search(initial, search, workspace, threads);
+            } finally {
+                workspace.reset();
+            }
+        }
+        this.solvable = path != null;
+        this.moves = path != null ? path.size() - 1 : -1;
+        this.solution = path;
+    }
 
-        SearchNode goalNode = null;
+    private List<Board> search(Board initial, Search search, Workspace workspace, int threads) {
+        switch (search) {
+            case IDA_STAR: return idaStar(initial, workspace);
+            case BIDIRECTIONAL: return bidirectional(initial);
+            case HDA_STAR: return new Distributed(threads).solve(initial);
+            default: return aStar(initial, search, workspace);
+        }
+    }
+
+    // Search structures that keep their capacity from one Solver to the next, so a
+    // thread solving many boards stops allocating tables once they have grown. Not
+    // thread-safe: use one per thread.
+    public static final class Workspace {
+        private final LongIntHashMap keys = new LongIntHashMap();
+        private final HashMap<Board, Integer> boards = new HashMap<>();
+        private final BucketQueue<SearchNode> queue = new BucketQueue<>();
+        private int[] path = new int[64];
+
+        // Drops the boards of the last search, keeping the tables
+        private void reset() {
+            keys.clear();
+            boards.clear();
+            queue.clear();
+        }
+    }
+
+    // Boards already expanded, with the fewest moves each was expanded at. Keys are exact
+    // up to 4 x 4 and go in a primitive map; larger boards fall back to a HashMap, since
+    // their Zobrist keys may collide.
+    private static class ClosedSet {
+        private final LongIntHashMap keys;
+        private final HashMap<Board, Integer> boards;
+
+        ClosedSet(Board initial, Workspace workspace) {
+            keys = initial.hasExactKey() ? workspace.keys : null;
+            boards = initial.hasExactKey() ? null : workspace.boards;
+        }
 
-        while (!pq.isEmpty() && !twinPQ.isEmpty()) {
-            goalNode = process(pq);
-            if (goalNode != null || process(twinPQ) != null) break;
+        // Integer.MAX_VALUE if the board was never expanded
+        int moves(Board board) {
+            if (keys != null) return keys.get(board.key(), Integer.MAX_VALUE);
+            return boards.getOrDefault(board, Integer.MAX_VALUE);
         }
 
-        if (goalNode != null) {
-            this.solvable = true;
-            this.moves = goalNode.moves;
-            this.solution = new ArrayList<>();
-            for (SearchNode node = goalNode; node != null; node = node.previous) {
-                solution.add(0, node.board);
+        // Returns false if the board was already closed at no more moves
+        boolean close(Board board, int moves) {
+            if (moves(board) <= moves) return false;
+            if (keys != null) keys.put(board.key(), moves);
+            else boards.put(board, moves);
+            return true;
+        }
+    }
+
+    // The open boards of A*, smallest moves + heuristic first
+    private interface Frontier {
+        void insert(SearchNode node);
+
+        SearchNode delMin();
+
+        boolean isEmpty();
+    }
+
+    private static Frontier frontier(Search search, Workspace workspace) {
+        if (search == Search.A_STAR_HEAP) {
+            MinPQ<SearchNode> pq = new MinPQ<>();
+            return new Frontier() {
+                public void insert(SearchNode node) {
+                    pq.insert(node);
+                }
+
+                public SearchNode delMin() {
+                    return pq.delMin();
+                }
+
+                public boolean isEmpty() {
+                    return pq.isEmpty();
+                }
+            };
+        }
+        BucketQueue<SearchNode> pq = workspace.queue;
+        return new Frontier() {
+            public void insert(SearchNode node) {
+                pq.insert(node, node.priority, node.priority - node.moves);
             }
-        } else {
-            this.solvable = false;
-            this.moves = -1;
-            this.solution = null;
+
+            public SearchNode delMin() {
+                return pq.delMin();
+            }
+
+            public boolean isEmpty() {
+                return pq.isEmpty();
+            }
+        };
+    }
+
+    private List<Board> aStar(Board initial, Search search, Workspace workspace) {
+        Frontier pq = frontier(search, workspace);
+        ClosedSet closed = new ClosedSet(initial, workspace);
+        pq.insert(node(initial, 0, null));
+
+        SearchNode goalNode = null;
+
+        while (goalNode == null && !pq.isEmpty()) {
+            goalNode = process(pq, closed);
+        }
+
+        if (goalNode == null) return null;
+        return pathTo(goalNode);
+    }
+
+    // The boards from the start of node's chain to node
+    private static List<Board> pathTo(SearchNode node) {
+        List<Board> path = new ArrayList<>();
+        for (; node != null; node = node.previous) {
+            path.add(node.board);
         }
+        Collections.reverse(path);
+        return path;
     }
 
-    private SearchNode process(MinPQ<SearchNode> pq) {
+    // Expands a board again only if it comes back on a shorter path. With a consistent
+    // heuristic the first time a board leaves the queue it has its fewest moves, so every
+    // later copy is dropped; an inconsistent one, such as PatternDatabase, can reopen a
+    // few boards.
+    private SearchNode process(Frontier pq, ClosedSet closed) {
         if (pq.isEmpty()) return null;
         SearchNode current = pq.delMin();
         if (current.board.isGoal()) return current;
+        if (!closed.close(current.board, current.moves)) return null;
+        expanded++;
+        int moves = current.moves + 1;
         for (Board neighbor : current.board.neighbors()) {
-            if (current.previous == null || !neighbor.equals(current.previous.board)) {
-                pq.insert(new SearchNode(neighbor, current.moves + 1, current));
+            if (closed.moves(neighbor) > moves) {
+                pq.insert(node(neighbor, moves, current));
             }
         }
         return null;
     }
 
+    // Bidirectional A*: one frontier grows from the initial board under the heuristic,
+    // the other from the goal under the Manhattan distance to the initial board, always
+    // the smaller one first. Each board generated is looked up on the other side, and mu
+    // is the shortest complete path met so far. Both heuristics are admissible and a board
+    // reached again on a shorter path is queued again, so once the smallest f on either
+    // frontier reaches mu no shorter path can remain.
+    private List<Board> bidirectional(Board initial) {
+        if (initial.isGoal()) return pathTo(new SearchNode(initial, 0, null, 0));
+        int n = initial.dimension();
+        char[] tiles = initial.tiles();
+        int[] target = new int[n * n];  // Square of each tile on the initial board
+        for (int i = 0; i < tiles.length; i++) {
+            target[tiles[i]] = i;
+        }
+
+        Side forward = new Side(), backward = new Side();
+        forward.add(node(initial, 0, null));
+        Board goal = goal(n);
+        backward.add(new SearchNode(goal, 0, null, distance(goal, target)));
+
+        int mu = Integer.MAX_VALUE;
+        SearchNode meetForward = null, meetBackward = null;
+        while (!forward.open.isEmpty() && !backward.open.isEmpty()) {
+            if (Math.max(forward.open.minPriority(), backward.open.minPriority()) >= mu) break;
+            boolean isForward = forward.open.size() <= backward.open.size();
+            Side side = isForward ? forward : backward;
+            Side other = isForward ? backward : forward;
+
+            SearchNode current = side.open.delMin();
+            if (side.best.get(current.board) != current) continue;  // A shorter path replaced it
+            expanded++;
+            for (Board neighbor : current.board.neighbors()) {
+                int g = current.moves + 1;
+                SearchNode known = side.best.get(neighbor);
+                if (known != null && known.moves <= g) continue;
+                int h = isForward ? heuristic.estimate(neighbor) : distance(neighbor, target);
+                if (g + h >= mu) continue;  // Cannot beat the path already met
+                SearchNode node = new SearchNode(neighbor, g, current, g + h);
+                side.add(node);
+
+                SearchNode match = other.best.get(neighbor);
+                if (match != null && g + match.moves < mu) {
+                    mu = g + match.moves;
+                    meetForward = isForward ? node : match;
+                    meetBackward = isForward ? match : node;
+                }
+            }
+        }
+
+        // The forward chain runs from the initial board to the meeting board; the backward
+        // chain then continues from there to the goal
+        List<Board> path = pathTo(meetForward);
+        for (SearchNode node = meetBackward.previous; node != null; node = node.previous) {
+            path.add(node.board);
+        }
+        return path;
+    }
+
+    // One direction of the bidirectional search, with the shortest known path to each
+    // board it has seen
+    private final class Side {
+        private final BucketQueue<SearchNode> open = new BucketQueue<>();
+        private final HashMap<Board, SearchNode> best = new HashMap<>();
+
+        void add(SearchNode node) {
+            best.put(node.board, node);
+            open.insert(node, node.priority, node.priority - node.moves);
+        }
+    }
+
+    private static Board goal(int n) {
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n * n - 1; i++) {
+            tiles[i / n][i % n] = i + 1;
+        }
+        return new Board(tiles);
+    }
+
+    // Manhattan distance from board to the board whose tile t sits on square target[t]
+    private static int distance(Board board, int[] target) {
+        int n = board.dimension();
+        char[] tiles = board.tiles();
+        int sum = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int tile = tiles[i];
+            if (tile == 0) continue;
+            sum += Math.abs(target[tile] / n - i / n) + Math.abs(target[tile] % n - i % n);
+        }
+        return sum;
+    }
+
+    // Hash-distributed A* (HDA*): every board belongs to one worker, picked by its key,
+    // and only that worker keeps it in an open list and a table of best paths. Workers
+    // expand their own boards in f order and mail neighbours they do not own to the
+    // owner's inbox, so a board can arrive after its owner expanded it, on a shorter path;
+    // it is then queued and expanded again. The first goal found is only an incumbent: the
+    // search ends when every board generated has been expanded, or dropped because its f
+    // reached the incumbent's moves, which pending counts across all open lists and inboxes.
+    private final class Distributed {
+        private static final int SPINS = 100;
+        private static final long MAX_PARK_NANOS = 1_000_000;
+
+        private final Worker[] workers;
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicReference<SearchNode> incumbent = new AtomicReference<>();
+        private volatile Throwable failure;
+
+        Distributed(int threads) {
+            workers = new Worker[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(i);
+            }
+        }
+
+        List<Board> solve(Board initial) {
+            pending.set(1);
+            workers[owner(initial)].inbox.add(node(initial, 0, null));
+            Thread[] threads = new Thread[workers.length];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(workers[i], "hda-" + i);
+                threads[i].start();
+            }
+            try {
+                for (Thread thread : threads) thread.join();
+            } catch (InterruptedException e) {
+                failure = e;
+                Thread.currentThread().interrupt();
+            }
+
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new IllegalStateException("Search interrupted", failure);
+            for (Worker worker : workers) expanded += worker.expanded;
+            return pathTo(incumbent.get());
+        }
+
+        private int owner(Board board) {
+            long h = board.key() * 0x9E3779B97F4A7C15L;
+            return (int) (((h >>> 32) * workers.length) >>> 32);
+        }
+
+        private int cost() {
+            SearchNode goal = incumbent.get();
+            return goal == null ? Integer.MAX_VALUE : goal.moves;
+        }
+
+        private void offerGoal(SearchNode node) {
+            while (true) {
+                SearchNode goal = incumbent.get();
+                if (goal != null && goal.moves <= node.moves) return;
+                if (incumbent.compareAndSet(goal, node)) return;
+            }
+        }
+
+        private final class Worker implements Runnable {
+            private final int self;
+            private final ConcurrentLinkedQueue<SearchNode> inbox = new ConcurrentLinkedQueue<>();
+            private final BucketQueue<SearchNode> open = new BucketQueue<>();
+            private final HashMap<Board, SearchNode> best = new HashMap<>();
+            private long expanded;
+
+            Worker(int self) {
+                this.self = self;
+            }
+
+            public void run() {
+                int idle = 0;
+                try {
+                    while (pending.get() > 0 && failure == null) {
+                        for (SearchNode node; (node = inbox.poll()) != null; ) {
+                            receive(node);
+                        }
+                        if (open.isEmpty()) {
+                            idle = idle(idle);
+                            continue;
+                        }
+                        idle = 0;
+                        SearchNode current = open.delMin();
+                        if (best.get(current.board) == current && current.priority < cost()) {
+                            if (current.board.isGoal()) offerGoal(current);
+                            else expand(current);
+                        }
+                        pending.decrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+
+            // Waits for work after idle empty rounds in a row and returns the new count.
+            // Spins at first, since work usually arrives within microseconds, then parks
+            // for spells that double up to a millisecond, so an idle worker stops taking
+            // a core from the busy ones.
+            private int idle(int idle) {
+                if (idle < SPINS) Thread.onSpinWait();
+                else LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(idle - SPINS, 10)));
+                return idle + 1;
+            }
+
+            // Keeps node if it is the shortest path to its board so far; a board still
+            // pending until it leaves the open list
+            private void receive(SearchNode node) {
+                SearchNode known = best.get(node.board);
+                if ((known != null && known.moves <= node.moves) || node.priority >= cost()) {
+                    pending.decrementAndGet();
+                    return;
+                }
+                best.put(node.board, node);
+                open.insert(node, node.priority, node.priority - node.moves);
+            }
+
+            private void expand(SearchNode current) {
+                expanded++;
+                for (Board neighbor : current.board.neighbors()) {
+                    if (current.previous != null && neighbor.equals(current.previous.board)) continue;
+                    SearchNode node = node(neighbor, current.moves + 1, current);
+                    if (node.priority >= cost()) continue;
+                    pending.incrementAndGet();  // Before anyone can see it
+                    int owner = owner(neighbor);
+                    if (owner == self) receive(node);
+                    else workers[owner].inbox.add(node);
+                }
+            }
+        }
+    }
+
+    // The boards of the solution are only built once the path is known
+    private List<Board> idaStar(Board initial, Workspace workspace) {
+        int[] squares = new DepthFirst(initial, workspace).solve();
+        List<Board> path = new ArrayList<>(squares.length + 1);
+        Board board = initial;
+        path.add(board);
+        for (int square : squares) {
+            board = board.slide(square);
+            path.add(board);
+        }
+        return path;
+    }
+
+    // One IDA* search over a private copy of the tiles, changed in place move by move.
+    // The path is the sequence of squares the blank moved to.
+    private class DepthFirst {
+        private static final int FOUND = -1;
+
+        private final char[] tiles;
+        private final int n;
+        private final int start;
+        private final Workspace workspace;
+        private int[] path;
+        private int depth;
+
+        DepthFirst(Board initial, Workspace workspace) {
+            this.tiles = initial.tiles().clone();
+            this.n = initial.dimension();
+            this.start = initial.blank();
+            this.workspace = workspace;
+            this.path = workspace.path;
+        }
+
+        int[] solve() {
+            int h = heuristic.estimate(tiles, n);
+            int bound = h;
+            while (true) {
+                int next = search(start, -1, 0, h, bound);
+                if (next == FOUND) {
+                    workspace.path = path;  // Keep it if it grew
+                    return Arrays.copyOf(path, depth);
+                }
+                bound = next;
+            }
+        }
+
+        // FOUND, or the smallest f = g + h beyond bound met below this node
+        private int search(int blank, int previous, int g, int h, int bound) {
+            int f = g + h;
+            if (f > bound) return f;
+            if (h == 0 && isGoal()) return FOUND;
+            expanded++;
+
+            int min = Integer.MAX_VALUE;
+            int row = blank / n, col = blank % n;
+            if (row > 0 && blank - n != previous) {
+                int t = move(blank, blank - n, g, h, bound);
+                if (t == FOUND) return FOUND;
+                min = Math.min(min, t);
+            }
+            if (row < n - 1 && blank + n != previous) {
+                int t = move(blank, blank + n, g, h, bound);
+                if (t == FOUND) return FOUND;
+                min = Math.min(min, t);
+            }
+            if (col > 0 && blank - 1 != previous) {
+                int t = move(blank, blank - 1, g, h, bound);
+                if (t == FOUND) return FOUND;
+                min = Math.min(min, t);
+            }
+            if (col < n - 1 && blank + 1 != previous) {
+                int t = move(blank, blank + 1, g, h, bound);
+                if (t == FOUND) return FOUND;
+                min = Math.min(min, t);
+            }
+            return min;
+        }
+
+        // Slides the tile at square into the blank, searches below, and slides it back
+        // unless the goal was found
+        private int move(int blank, int square, int g, int h, int bound) {
+            char tile = tiles[square];
+            tiles[blank] = tile;
+            tiles[square] = 0;
+            if (depth == path.length) path = Arrays.copyOf(path, 2 * depth);
+            path[depth++] = square;
+
+            int t = search(square, blank, g + 1, heuristic.update(tiles, n, h, tile, square, blank), bound);
+            if (t == FOUND) return FOUND;
+
+            depth--;
+            tiles[square] = tile;
+            tiles[blank] = 0;
+            return t;
+        }
+
+        private boolean isGoal() {
+            for (int i = 0; i < tiles.length - 1; i++) {
+                if (tiles[i] != i + 1) return false;
+            }
+            return true;
+        }
+    }
+
     public boolean isSolvable() {
         return solvable;
     }
 
+    // Boards whose neighbours the search generated; IDA* counts every iteration
+    long expanded() {
+        return expanded;
+    }
+
     public int moves() {
         return moves;
     }
@@ -78,7 +585,24 @@ public class Solver {
         return solution;
     }
 
+    // Solves the puzzle in the file named by args[0]; BatchSolver solves many at once
     public static void main(String[] args) {
-        // Test client implementation here.
+        In in = new In(args[0]);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                tiles[i][j] = in.readInt();
+            }
+        }
+        Solver solver = new Solver(new Board(tiles));
+        if (!solver.isSolvable()) {
+            StdOut.println("No solution possible");
+        } else {
+            StdOut.println("Minimum number of moves = " + solver.moves());
+            for (Board board : solver.solution()) {
+                StdOut.println(board);
+            }
+        }
     }
 }
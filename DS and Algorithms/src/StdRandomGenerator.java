@@ -0,0 +1,24 @@
+import edu.princeton.cs.algs4.StdRandom;
+import java.util.random.RandomGenerator;
+
+// Adapts the global algs4 StdRandom to RandomGenerator, so classes that take an injectable
+// random source keep their old behaviour (including StdRandom.setSeed) by default
+final class StdRandomGenerator implements RandomGenerator {
+    static final StdRandomGenerator INSTANCE = new StdRandomGenerator();
+
+    private StdRandomGenerator() {
+    }
+
+    public long nextLong() {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 16 | StdRandom.uniform(1 << 16);
+        }
+        return value;
+    }
+
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be > 0");
+        return StdRandom.uniform(bound);
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.SplittableRandom;
+
+// Runs percolation trials one at a time and keeps only a running mean and variance
+// (Welford's method), stopping as soon as the 95% confidence interval is narrow enough.
+public class StreamingPercolationStats {
+    private static final double CONFIDENCE_95 = 1.96;
+    private static final int MIN_TRIALS = 10;  // Too few trials make the stddev estimate meaningless
+
+    // Called after every finished trial
+    public interface ProgressListener {
+        void trialCompleted(int trials, double mean, double halfWidth);
+    }
+
+    private int trials;
+    private double mean;
+    private double m2;  // Sum of squared deviations from the running mean
+
+    // Trial t uses the same random stream as trial t of PercolationStats with the same seed
+    public StreamingPercolationStats(int n, double epsilon, int maxTrials, long seed,
+                                     PercolationStats.Sampling sampling, ProgressListener listener) {
+        this(Lattice.square4(n), epsilon, maxTrials, seed, sampling, listener);
+    }
+
+    public StreamingPercolationStats(Lattice lattice, double epsilon, int maxTrials, long seed,
+                                     PercolationStats.Sampling sampling, ProgressListener listener) {
+        if (lattice == null) throw new IllegalArgumentException("lattice cannot be null");
+        if (maxTrials <= 0) throw new IllegalArgumentException("maxTrials must be > 0");
+        if (!(epsilon > 0)) throw new IllegalArgumentException("epsilon must be > 0");
+        if (sampling == null) throw new IllegalArgumentException("sampling cannot be null");
+
+        SplittableRandom root = new SplittableRandom(seed);
+        while (trials < maxTrials) {
+            add(PercolationStats.trial(lattice, root.split(), sampling));
+            if (listener != null) listener.trialCompleted(trials, mean, halfWidth());
+            if (trials >= MIN_TRIALS && halfWidth() < epsilon) break;
+        }
+    }
+
+    private void add(double threshold) {
+        trials++;
+        double delta = threshold - mean;
+        mean += delta / trials;
+        m2 += delta * (threshold - mean);
+    }
+
+    private double halfWidth() {
+        if (trials < 2) return Double.POSITIVE_INFINITY;
+        return CONFIDENCE_95 * stddev() / Math.sqrt(trials);
+    }
+
+    // Number of trials actually run
+    public int trials() {
+        return trials;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double stddev() {
+        if (trials < 2) return Double.NaN;
+        return Math.sqrt(m2 / (trials - 1));
+    }
+
+    public double confidenceLo() {
+        return mean - halfWidth();
+    }
+
+    public double confidenceHi() {
+        return mean + halfWidth();
+    }
+
+    // Usage: StreamingPercolationStats n epsilon maxTrials seed
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        double epsilon = Double.parseDouble(args[1]);
+        int maxTrials = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        StreamingPercolationStats stats = new StreamingPercolationStats(n, epsilon, maxTrials, seed,
+                PercolationStats.Sampling.SHUFFLE, (trials, mean, halfWidth) -> {
+                    if (trials % 10 == 0) System.out.printf("trials = %d, mean = %f, +/- %f%n", trials, mean, halfWidth);
+                });
+
+        System.out.printf("trials = %d%n", stats.trials());
+        System.out.printf("mean = %f%n", stats.mean());
+        System.out.printf("stddev = %f%n", stats.stddev());
+        System.out.printf("95%% confidence interval = [%f, %f]%n",
+                stats.confidenceLo(), stats.confidenceHi());
+    }
+}
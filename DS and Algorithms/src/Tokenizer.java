@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Splits a byte stream into whitespace-separated UTF-8 tokens, reading through one
+// reusable buffer. Tokens are only decoded into Strings when asked for, so skip() moves
+// past tokens without allocating. Whitespace is the ASCII set (space, \t, \n, \u000B,
+// \f, \r), which UTF-8 never uses inside a multi-byte character.
+public class Tokenizer implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAP_SIZE = 1L << 30;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel file;  // Set when reading mapped regions of a file instead
+    private long mapped;             // File offset up to which regions have been mapped
+    private ByteBuffer buffer;
+    private byte[] token = new byte[64];  // Bytes of a token that straddles a refill
+    private boolean eof;
+
+    public Tokenizer(ReadableByteChannel channel) {
+        if (channel == null) throw new IllegalArgumentException("channel cannot be null");
+        this.channel = channel;
+        this.file = null;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+    }
+
+    private Tokenizer(FileChannel file) {
+        this.channel = null;
+        this.file = file;
+        this.buffer = ByteBuffer.allocate(0);
+    }
+
+    // Reads the file through memory-mapped 1 GiB regions instead of copying it into a
+    // buffer, so scanning is bound by the page cache rather than by read calls
+    public static Tokenizer map(Path path) throws IOException {
+        return new Tokenizer(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public void close() throws IOException {
+        if (file != null) file.close();
+        else channel.close();
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    // Refills the buffer; false once the channel is exhausted
+    private boolean fill() {
+        if (eof) return false;
+        if (file != null) return mapNext();
+        buffer.clear();
+        try {
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            if (read < 0) eof = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.hasRemaining();
+    }
+
+    private boolean mapNext() {
+        try {
+            long size = file.size();
+            if (mapped >= size) {
+                eof = true;
+                return false;
+            }
+            long length = Math.min(MAP_SIZE, size - mapped);
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Moves to the first byte of the next token; false if there is none
+    private boolean skipWhitespace() {
+        while (true) {
+            while (buffer.hasRemaining()) {
+                if (!isWhitespace(buffer.get(buffer.position()))) return true;
+                buffer.position(buffer.position() + 1);
+            }
+            if (!fill()) return false;
+        }
+    }
+
+    public boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    public String next() {
+        if (!skipWhitespace()) throw new NoSuchElementException();
+        int length = 0;
+        while (true) {
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (isWhitespace(b)) return new String(token, 0, length, StandardCharsets.UTF_8);
+                if (length == token.length) token = Arrays.copyOf(token, 2 * length);
+                token[length++] = b;
+            }
+            if (!fill()) return new String(token, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Skips up to count tokens without decoding them; returns how many were skipped
+    public long skip(long count) {
+        long skipped = 0;
+        while (skipped < count && skipWhitespace()) {
+            boolean inToken = true;
+            while (inToken) {
+                while (buffer.hasRemaining()) {
+                    if (isWhitespace(buffer.get())) {
+                        inToken = false;
+                        break;
+                    }
+                }
+                if (inToken && !fill()) inToken = false;
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,180 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Lock-free Chase-Lev work-stealing deque. One owner thread works the last end
+// (addLast, removeLast, pollLast) like a stack; any thread may steal from the first end
+// (removeFirst, pollFirst). Stealing races are settled by a CAS on top; the owner only
+// needs one when it takes the last item.
+//
+// Single-owner rule: the owner methods write bottom without synchronization, so they
+// must only ever be called from one thread at a time, normally the thread that owns
+// the deque. The deque can be handed to another owner only with a happens-before edge
+// (e.g. Thread.start or a volatile write). Breaking the rule loses or duplicates items.
+// There is no addFirst: pushing at the stealing end would need the same CAS as a
+// steal on every push and reopen the ABA races the single owner avoids.
+//
+// Only the owner writes slots. A stolen item stays in its slot until the owner pushes
+// over it, as in the original algorithm: a thief clearing the slot after its CAS could
+// stall, and by the time it ran the owner might have wrapped around and stored a live
+// item there, possibly the same object again.
+public class WorkStealingDeque<Item> {
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicLong top = new AtomicLong();  // Next index to steal
+    private volatile long bottom;                      // Next index the owner pushes to
+    private volatile AtomicReferenceArray<Item> items; // Circular, indexed by position & mask
+
+    public WorkStealingDeque() {
+        items = new AtomicReferenceArray<>(MIN_CAPACITY);
+    }
+
+    // A snapshot; may be stale by the time it returns when other threads are stealing
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        long b = bottom;
+        long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    // Owner only, see the single-owner rule above
+    public void addLast(Item item) {
+        if (item == null) throw new IllegalArgumentException();
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> a = items;
+        if (b - t >= a.length()) a = grow(a, t, b);
+        a.set((int) b & (a.length() - 1), item);
+        bottom = b + 1;
+    }
+
+    // Thieves still reading the old array see the same items at the same positions
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> old, long t, long b) {
+        AtomicReferenceArray<Item> a = new AtomicReferenceArray<>(old.length() * 2);
+        for (long i = t; i < b; i++) {
+            a.set((int) i & (a.length() - 1), old.get((int) i & (old.length() - 1)));
+        }
+        items = a;
+        return a;
+    }
+
+    // Owner only
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) throw new NoSuchElementException();
+        return item;
+    }
+
+    // Owner only; returns null if the deque is empty
+    public Item pollLast() {
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> a = items;
+        bottom = b;  // Claim the slot before looking at top
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int slot = (int) b & (a.length() - 1);
+        Item item = a.get(slot);
+        if (t == b) {
+            // Last item: race the thieves for it
+            if (top.compareAndSet(t, t + 1)) a.set(slot, null);
+            else item = null;
+            bottom = b + 1;
+        } else {
+            a.set(slot, null); // Avoid loitering; no thief can reach this slot any more
+        }
+        return item;
+    }
+
+    // Any thread
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) throw new NoSuchElementException();
+        return item;
+    }
+
+    // Any thread; returns null if the deque is empty, retrying while it loses races
+    public Item pollFirst() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) return null;
+            AtomicReferenceArray<Item> a = items;
+            int slot = (int) t & (a.length() - 1);
+            Item item = a.get(slot);
+            if (top.compareAndSet(t, t + 1)) return item;
+        }
+    }
+
+    // Unit testing: the owner pushes and pops while thieves steal; every item must be
+    // taken exactly once. Then the same object is pushed over and over into a deque kept
+    // small enough never to grow, so the ring wraps around and reuses every slot for it
+    // while thieves steal; every push must still come out exactly once.
+    public static void main(String[] args) throws InterruptedException {
+        int items = 1_000_000;
+        int thieves = 3;
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        boolean[] taken = new boolean[items];
+        AtomicInteger count = new AtomicInteger();
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                while (count.get() < items) {
+                    Integer item = deque.pollFirst();
+                    if (item != null) {
+                        taken[item] = true;
+                        count.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < items; i++) {
+            deque.addLast(i);
+            if (i % 3 == 0) {
+                Integer item = deque.pollLast();
+                if (item != null) {
+                    taken[item] = true;
+                    count.incrementAndGet();
+                }
+            }
+        }
+        for (Integer item; (item = deque.pollLast()) != null; ) {
+            taken[item] = true;
+            count.incrementAndGet();
+        }
+        for (Thread thread : threads) thread.join();
+        int missing = 0;
+        for (boolean t : taken) if (!t) missing++;
+        System.out.println("Taken: " + count.get() + ", missing: " + missing); // 1000000, 0
+
+        WorkStealingDeque<Object> ring = new WorkStealingDeque<>();
+        Object same = new Object();
+        AtomicInteger stolen = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(() -> {
+                while (!done.get()) {
+                    if (ring.pollFirst() != null) stolen.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        int popped = 0;
+        for (int i = 0; i < items; i++) {
+            ring.addLast(same);
+            if (ring.size() >= MIN_CAPACITY / 2 && ring.pollLast() != null) popped++;
+        }
+        while (ring.pollLast() != null) popped++;
+        done.set(true);
+        for (Thread thread : threads) thread.join();
+        System.out.println("Same object pushed: " + items + ", taken: " + (popped + stolen.get())); // equal
+    }
+}